@@ -0,0 +1,65 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.transform.ApproximateProjectionTransform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the exact BTE projection with {@link ApproximateProjectionTransform} when generating chunks, i.e. converting every block column of a
+ * 512x512 region, one 16x16 chunk at a time.
+ * <p>
+ * Scores are in points per second. The approximation's tiles are built during warmup, as they would be once a region has been visited.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApproximateProjectionBenchmark {
+    private static final int REGION = 512;
+    private static final int CHUNK = 16;
+
+    @Param({ "false", "true" })
+    public boolean approximate;
+
+    @Param({ "2851660,-5049718", "-8526456,-6021812", "11571988,-6472387" })
+    public String origin;
+
+    private GeographicProjection projection;
+    private double originX;
+    private double originY;
+    private final double[] dst = new double[2];
+
+    @Setup
+    public void setup() {
+        this.projection = this.approximate
+                ? new ApproximateProjectionTransform(TerraProjectionConstants.bteProjection(), null, null)
+                : TerraProjectionConstants.bteProjection();
+
+        String[] split = this.origin.split(",");
+        this.originX = Double.parseDouble(split[0]);
+        this.originY = Double.parseDouble(split[1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REGION * REGION)
+    public double region() {
+        double sum = 0.0d;
+        for (int chunkZ = 0; chunkZ < REGION; chunkZ += CHUNK) {
+            for (int chunkX = 0; chunkX < REGION; chunkX += CHUNK) {
+                for (int z = 0; z < CHUNK; z++) {
+                    for (int x = 0; x < CHUNK; x++) {
+                        if (this.projection.toGeo(this.originX + chunkX + x, this.originY + chunkZ + z, this.dst, 0)) {
+                            sum += this.dst[0];
+                        }
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,96 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.BTEDymaxionProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.ConformalDynmaxionProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.DymaxionProjection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-point conversions of the Dymaxion family of projections.
+ * <p>
+ * {@code bte_conformal_dymaxion_single} stores the conformal vector field in single precision, and {@code bte_conformal_dymaxion_cubic} interpolates it
+ * with cubic polynomials.
+ * <p>
+ * Run with {@code -prof gc} to check that they don't allocate anything. Scores are in points per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DymaxionProjectionBenchmark {
+    private static final int COUNT = 1 << 12;
+
+    @Param({ "dymaxion", "conformal_dymaxion", "bte_conformal_dymaxion", "bte_conformal_dymaxion_single", "bte_conformal_dymaxion_cubic", "dymaxion_fast_math", "bte_conformal_dymaxion_fast_math" })
+    public String projectionName;
+
+    private GeographicProjection projection;
+
+    private double[] geos;
+    private double[] positions;
+    private final double[] dst = new double[2];
+
+    @Setup
+    public void setup() {
+        switch (this.projectionName) {
+            case "dymaxion":
+                this.projection = new DymaxionProjection();
+                break;
+            case "dymaxion_fast_math":
+                this.projection = new DymaxionProjection(null, true);
+                break;
+            case "conformal_dymaxion":
+                this.projection = new ConformalDynmaxionProjection();
+                break;
+            case "bte_conformal_dymaxion_single":
+                this.projection = new BTEDymaxionProjection(true);
+                break;
+            case "bte_conformal_dymaxion_cubic":
+                this.projection = new BTEDymaxionProjection(null, ConformalDynmaxionProjection.Interpolation.CUBIC);
+                break;
+            case "bte_conformal_dymaxion_fast_math":
+                this.projection = new BTEDymaxionProjection(null, null, null, true);
+                break;
+            default:
+                this.projection = new BTEDymaxionProjection();
+        }
+
+        Random random = new Random(1337L);
+        this.geos = new double[COUNT * 2];
+        this.positions = new double[COUNT * 2];
+        for (int i = 0; i < COUNT; i++) {
+            this.geos[2 * i] = random.nextDouble() * 360.0d - 180.0d;
+            this.geos[2 * i + 1] = random.nextDouble() * 180.0d - 90.0d;
+            this.projection.fromGeo(this.geos[2 * i], this.geos[2 * i + 1], this.positions, 2 * i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double fromGeo() {
+        double sum = 0.0d;
+        for (int i = 0; i < COUNT; i++) {
+            if (this.projection.fromGeo(this.geos[2 * i], this.geos[2 * i + 1], this.dst, 0)) {
+                sum += this.dst[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double toGeo() {
+        double sum = 0.0d;
+        for (int i = 0; i < COUNT; i++) {
+            if (this.projection.toGeo(this.positions[2 * i], this.positions[2 * i + 1], this.dst, 0)) {
+                sum += this.dst[0];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,81 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.ParallelProjector;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link ParallelProjector} scales with the number of threads, using the BTE projection.
+ * <p>
+ * Scores are in points per second, and {@code threads=0} is the sequential baseline calling the batch methods directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelProjectorBenchmark {
+    private static final int COUNT = 1 << 21;
+
+    @Param({ "0", "1", "2", "4", "8", "16", "32" })
+    public int threads;
+
+    private final GeographicProjection projection = TerraProjectionConstants.bteProjection();
+
+    private ForkJoinPool pool;
+    private ParallelProjector projector;
+
+    private double[] geos;
+    private double[] positions;
+    private double[] dst;
+    private long[] valid;
+
+    @Setup
+    public void setup() {
+        if (this.threads > 0) {
+            this.pool = new ForkJoinPool(this.threads);
+            this.projector = new ParallelProjector(this.pool);
+        }
+
+        Random random = new Random(1337L);
+        this.geos = new double[COUNT * 2];
+        for (int i = 0; i < COUNT; i++) {
+            this.geos[2 * i] = random.nextDouble() * 360.0d - 180.0d;
+            this.geos[2 * i + 1] = random.nextDouble() * 180.0d - 90.0d;
+        }
+        this.positions = new double[COUNT * 2];
+        this.dst = new double[COUNT * 2];
+        this.valid = BatchUtils.newMask(COUNT);
+        this.projection.fromGeoBatch(this.geos, this.positions, 0, COUNT, this.valid);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int fromGeo() {
+        return this.threads > 0
+                ? this.projector.fromGeo(this.projection, this.geos, this.dst, 0, COUNT, this.valid)
+                : this.projection.fromGeoBatch(this.geos, this.dst, 0, COUNT, this.valid);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int toGeo() {
+        return this.threads > 0
+                ? this.projector.toGeo(this.projection, this.positions, this.dst, 0, COUNT, this.valid)
+                : this.projection.toGeoBatch(this.positions, this.dst, 0, COUNT, this.valid);
+    }
+}
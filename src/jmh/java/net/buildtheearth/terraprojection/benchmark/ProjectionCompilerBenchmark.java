@@ -0,0 +1,99 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.compiler.ProjectionCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-point conversions of interpreted projection chains with those of the same chains compiled by {@link ProjectionCompiler}.
+ * <p>
+ * A few other chains are converted during setup, so that the shared call sites in the transforms are megamorphic as they would be in a real application.
+ * Scores are in points per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionCompilerBenchmark {
+    private static final int COUNT = 1 << 12;
+
+    private static final String DEEP_CHAIN = "{ \"scale\": { \"delegate\": { \"offset\": { \"delegate\": { \"clamp\": { \"delegate\": " +
+            "{ \"rotate\": { \"delegate\": { \"swap_axes\": { \"delegate\": { \"flip_vertical\": { \"delegate\": { \"sinusoidal\": {} } } } } }, \"by\": 33 } }, " +
+            "\"minX\": -1000, \"minY\": -1000, \"maxX\": 1000, \"maxY\": 1000 } }, \"dx\": 3, \"dy\": -7 } }, \"x\": 12.5, \"y\": -0.25 } }";
+
+    private static final String[] POLLUTION = {
+            "{ \"scale\": { \"delegate\": { \"equirectangular\": {} }, \"x\": 2, \"y\": 2 } }",
+            "{ \"flip_vertical\": { \"delegate\": { \"web_mercator\": { \"zoom\": 2 } } } }",
+            "{ \"offset\": { \"delegate\": { \"equal_earth\": {} }, \"dx\": 1, \"dy\": 1 } }",
+            "{ \"clamp\": { \"delegate\": { \"transverse_mercator\": {} }, \"minX\": -100, \"minY\": -100, \"maxX\": 100, \"maxY\": 100 } }"
+    };
+
+    @Param({ "bte", "deep" })
+    public String chain;
+
+    @Param({ "false", "true" })
+    public boolean compiled;
+
+    private GeographicProjection projection;
+
+    private double[] geos;
+    private double[] positions;
+    private final double[] dst = new double[2];
+
+    @Setup
+    public void setup() {
+        GeographicProjection interpreted = "bte".equals(this.chain)
+                ? TerraProjectionConstants.bteProjection()
+                : GeographicProjection.parse(DEEP_CHAIN);
+        this.projection = this.compiled ? ProjectionCompiler.compile(interpreted) : interpreted;
+
+        Random random = new Random(1337L);
+        this.geos = new double[COUNT * 2];
+        this.positions = new double[COUNT * 2];
+        for (int i = 0; i < COUNT; i++) {
+            this.geos[2 * i] = random.nextDouble() * 120.0d - 60.0d;
+            this.geos[2 * i + 1] = random.nextDouble() * 120.0d - 60.0d;
+            interpreted.fromGeo(this.geos[2 * i], this.geos[2 * i + 1], this.positions, 2 * i);
+        }
+
+        for (String json : POLLUTION) {
+            GeographicProjection other = GeographicProjection.parse(json);
+            for (int i = 0; i < 20000; i++) {
+                double[] geo = { random.nextDouble() * 60.0d - 30.0d, random.nextDouble() * 60.0d - 30.0d };
+                if (other.fromGeo(geo[0], geo[1], this.dst, 0)) {
+                    other.toGeo(this.dst[0], this.dst[1], this.dst, 0);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double fromGeo() {
+        double sum = 0.0d;
+        for (int i = 0; i < COUNT; i++) {
+            if (this.projection.fromGeo(this.geos[2 * i], this.geos[2 * i + 1], this.dst, 0)) {
+                sum += this.dst[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double toGeo() {
+        double sum = 0.0d;
+        for (int i = 0; i < COUNT; i++) {
+            if (this.projection.toGeo(this.positions[2 * i], this.positions[2 * i + 1], this.dst, 0)) {
+                sum += this.dst[0];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,177 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.config.ProjectionRegistries;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.transform.CachedProjectionTransform;
+import net.buildtheearth.terraprojection.util.MathUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts single points with every projection and transform in {@link ProjectionRegistries#PROJECTIONS}, as well as
+ * {@link TerraProjectionConstants#bteProjection()} and a few deep chains, to compare library versions with each other.
+ * <p>
+ * Each invocation converts one point, so that {@link Mode#SampleTime} gives the distribution of the latency of single conversions. Points are drawn
+ * from one of three distributions:
+ * <ul>
+ *     <li>{@code cities}: clustered around large cities, as they are when players are spread over a map</li>
+ *     <li>{@code uniform}: uniformly distributed over the globe, or over the map for {@code toGeo}</li>
+ *     <li>{@code out_of_bounds}: mostly out of bounds, as when a map is explored past its edges</li>
+ * </ul>
+ * This runs several hundred benchmarks, which takes about an hour. The {@code jmhSuite} Gradle task runs it with the GC profiler, which measures
+ * allocation rates, and writes the results to a JSON file named after the library version, e.g.
+ * {@code ./gradlew jmhSuite -PjmhArgs="-p projection=bte,web_mercator -p distribution=cities"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionSuiteBenchmark {
+    private static final int COUNT = 1 << 14;
+
+    private static final String BTE_BASE = "{ \"scale\": { \"delegate\": { \"flip_vertical\": { \"delegate\": { \"bte_conformal_dymaxion\": {} } } }, " +
+            "\"x\": 7318261.522857145, \"y\": 7318261.522857145 } }";
+
+    /**
+     * The projection converted by each value of {@link #projection}, as JSON. Transforms are applied to a cheap projection so that their own cost
+     * isn't hidden, except for the ones meant to speed up expensive projections.
+     */
+    private static final Map<String, String> PROJECTIONS = ImmutableMap.<String, String>builder()
+            .put("centered_mercator", "{ \"centered_mercator\": {} }")
+            .put("web_mercator", "{ \"web_mercator\": { \"zoom\": 18 } }")
+            .put("transverse_mercator", "{ \"transverse_mercator\": {} }")
+            .put("equirectangular", "{ \"equirectangular\": {} }")
+            .put("sinusoidal", "{ \"sinusoidal\": {} }")
+            .put("equal_earth", "{ \"equal_earth\": {} }")
+            .put("bte_conformal_dymaxion", "{ \"bte_conformal_dymaxion\": {} }")
+            .put("dymaxion", "{ \"dymaxion\": {} }")
+            .put("conformal_dymaxion", "{ \"conformal_dymaxion\": {} }")
+            .put("lambert_azimuthal", "{ \"lambert_azimuthal\": { \"centerX\": 6.9, \"centerY\": 42.0 } }")
+            .put("azimuthal_equidistant", "{ \"azimuthal_equidistant\": { \"centerX\": 6.9, \"centerY\": 42.0 } }")
+            .put("stereographic", "{ \"stereographic\": { \"centerX\": 6.9, \"centerY\": 42.0, \"radius\": 123.4 } }")
+            .put("clamp", "{ \"clamp\": { \"delegate\": { \"equirectangular\": {} }, \"minX\": -150, \"minY\": -60, \"maxX\": 150, \"maxY\": 60 } }")
+            .put("flip_horizontal", "{ \"flip_horizontal\": { \"delegate\": { \"equirectangular\": {} } } }")
+            .put("flip_vertical", "{ \"flip_vertical\": { \"delegate\": { \"equirectangular\": {} } } }")
+            .put("offset", "{ \"offset\": { \"delegate\": { \"equirectangular\": {} }, \"dx\": 3, \"dy\": -7 } }")
+            .put("rotate", "{ \"rotate\": { \"delegate\": { \"equirectangular\": {} }, \"by\": 33 } }")
+            .put("scale", "{ \"scale\": { \"delegate\": { \"equirectangular\": {} }, \"x\": 12.5, \"y\": -0.25 } }")
+            .put("swap_axes", "{ \"swap_axes\": { \"delegate\": { \"equirectangular\": {} } } }")
+            .put("approximate", "{ \"approximate\": { \"delegate\": " + BTE_BASE + " } }")
+            .put("cached", "{ \"cached\": { \"delegate\": " + BTE_BASE + " } }")
+            .put("instrumented", "{ \"instrumented\": { \"delegate\": { \"equirectangular\": {} }, \"name\": \"benchmark\" } }")
+            //chains
+            .put("deep_chain", "{ \"scale\": { \"delegate\": { \"offset\": { \"delegate\": { \"clamp\": { \"delegate\": " +
+                    "{ \"rotate\": { \"delegate\": { \"swap_axes\": { \"delegate\": { \"flip_vertical\": { \"delegate\": { \"sinusoidal\": {} } } } } }, \"by\": 33 } }, " +
+                    "\"minX\": -1000, \"minY\": -1000, \"maxX\": 1000, \"maxY\": 1000 } }, \"dx\": 3, \"dy\": -7 } }, \"x\": 12.5, \"y\": -0.25 } }")
+            .put("cached_approximate_bte", "{ \"cached\": { \"delegate\": { \"approximate\": { \"delegate\": " + BTE_BASE + " } } } }")
+            .build();
+
+    /**
+     * {longitude, latitude} of the cities points are clustered around in the {@code cities} distribution
+     */
+    private static final double[][] CITIES = {
+            { 139.69, 35.69 }, { 77.21, 28.61 }, { 121.47, 31.23 }, { -46.63, -23.55 }, { -99.13, 19.43 }, { 31.24, 30.04 },
+            { 72.88, 19.08 }, { 116.41, 39.90 }, { 90.41, 23.81 }, { 135.50, 34.69 }, { -74.01, 40.71 }, { 67.01, 24.86 },
+            { -58.38, -34.60 }, { 28.98, 41.01 }, { 3.38, 6.52 }, { -118.24, 34.05 }, { 120.98, 14.60 }, { -43.17, -22.91 },
+            { 37.62, 55.76 }, { 2.35, 48.86 }, { -0.13, 51.51 }, { 13.40, 52.52 }, { 151.21, -33.87 }, { 18.42, -33.92 },
+            { -87.63, 41.88 }, { -123.12, 49.28 }, { 174.76, -36.85 }, { 103.82, 1.35 }, { -149.90, 61.22 }, { -21.94, 64.15 },
+    };
+
+    /**
+     * Standard deviation of the distance between points and the city they are clustered around, in degrees
+     */
+    private static final double CITY_RADIUS = 0.25d;
+
+    /**
+     * "bte" is {@link TerraProjectionConstants#bteProjection()}, the others are keys of {@link #PROJECTIONS}
+     */
+    @Param({ "centered_mercator", "web_mercator", "transverse_mercator", "equirectangular", "sinusoidal", "equal_earth", "bte_conformal_dymaxion",
+            "dymaxion", "conformal_dymaxion", "lambert_azimuthal", "azimuthal_equidistant", "stereographic", "clamp", "flip_horizontal",
+            "flip_vertical", "offset", "rotate", "scale", "swap_axes", "approximate", "cached", "instrumented", "bte", "deep_chain",
+            "cached_approximate_bte" })
+    public String projection;
+
+    @Param({ "cities", "uniform", "out_of_bounds" })
+    public String distribution;
+
+    private GeographicProjection instance;
+
+    private double[] geos;
+    private double[] positions;
+    private final double[] dst = new double[2];
+    private int next;
+
+    @Setup
+    public void setup() {
+        for (String name : ProjectionRegistries.PROJECTIONS.keySet()) {
+            Preconditions.checkState(PROJECTIONS.containsKey(name), "no benchmark for registered projection %s", name);
+        }
+        if ("bte".equals(this.projection)) {
+            this.instance = TerraProjectionConstants.bteProjection();
+        } else {
+            String json = PROJECTIONS.get(this.projection);
+            Preconditions.checkArgument(json != null, "unknown projection %s", this.projection);
+            this.instance = GeographicProjection.parse(json);
+        }
+
+        Random random = new Random(1337L);
+        this.geos = new double[COUNT * 2];
+        this.positions = new double[COUNT * 2];
+        double[] bounds = this.instance.bounds();
+        for (int i = 0; i < COUNT; i++) {
+            double longitude;
+            double latitude;
+            switch (this.distribution) {
+                case "cities": {
+                    double[] city = CITIES[random.nextInt(CITIES.length)];
+                    latitude = MathUtils.clamp(city[1] + random.nextGaussian() * CITY_RADIUS, -90.0d, 90.0d);
+                    longitude = MathUtils.clamp(city[0] + random.nextGaussian() * CITY_RADIUS / Math.cos(Math.toRadians(latitude)), -180.0d, 180.0d);
+                    break;
+                }
+                case "uniform":
+                    longitude = random.nextDouble() * 360.0d - 180.0d;
+                    latitude = Math.toDegrees(Math.asin(random.nextDouble() * 2.0d - 1.0d));
+                    break;
+                case "out_of_bounds": //three quarters of the points are out of bounds
+                    longitude = random.nextDouble() * 720.0d - 360.0d;
+                    latitude = random.nextDouble() * 360.0d - 180.0d;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown distribution " + this.distribution);
+            }
+            this.geos[2 * i] = longitude;
+            this.geos[2 * i + 1] = latitude;
+
+            if ("uniform".equals(this.distribution) || !this.instance.fromGeo(longitude, latitude, this.positions, 2 * i)) {
+                //sample the map rather than the globe, out of bounds points are drawn from around the map
+                double scale = "out_of_bounds".equals(this.distribution) ? 2.0d : 1.0d;
+                this.positions[2 * i] = MathUtils.lerp(random.nextDouble() * scale - (scale - 1) / 2, bounds[0], bounds[2]);
+                this.positions[2 * i + 1] = MathUtils.lerp(random.nextDouble() * scale - (scale - 1) / 2, bounds[1], bounds[3]);
+            }
+            if (this.instance instanceof CachedProjectionTransform) { //the cache only memoizes block positions, which is what it is used with
+                this.positions[2 * i] = Math.floor(this.positions[2 * i]);
+                this.positions[2 * i + 1] = Math.floor(this.positions[2 * i + 1]);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean fromGeo() {
+        int i = this.next++ & (COUNT - 1);
+        return this.instance.fromGeo(this.geos[2 * i], this.geos[2 * i + 1], this.dst, 0);
+    }
+
+    @Benchmark
+    public boolean toGeo() {
+        int i = this.next++ & (COUNT - 1);
+        return this.instance.toGeo(this.positions[2 * i], this.positions[2 * i + 1], this.dst, 0);
+    }
+}
@@ -0,0 +1,316 @@
+package net.buildtheearth.terraprojection.benchmark;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.config.ProjectionRegistries;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.BTEDymaxionProjection;
+import net.daporkchop.lib.binary.oio.StreamUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long it takes a fresh JVM to get to its first projected point with {@link TerraProjectionConstants#bteProjection()}, and how much heap
+ * it needs to get there.
+ * <p>
+ * JMH can't measure this, as its forks run the benchmarks' setup before anything is measured. Instead, every sample is taken in a new JVM, which goes
+ * through the phases of loading the BTE projection one at a time, and reports how long each of them took, and the peak heap usage during each of
+ * them:
+ * <ul>
+ *     <li>{@code jvm}: from the JVM's start to the probe's {@code main} method, in milliseconds</li>
+ *     <li>{@code json}: loading Gson and parsing the BTE projection's settings into a tree</li>
+ *     <li>{@code registry}: loading {@link ProjectionRegistries} and every projection class</li>
+ *     <li>{@code field}: loading the conformal Dymaxion projection's vector field</li>
+ *     <li>{@code constants}: what is left of {@link TerraProjectionConstants#bteProjection()} once all of the above is done</li>
+ *     <li>{@code first_call}: the first {@code fromGeo} and {@code toGeo} round trip, which runs in the interpreter</li>
+ *     <li>{@code jit}: round trips until they are about as fast as they get once the JIT has compiled them</li>
+ * </ul>
+ * Each phase is measured with the vector field loaded in three ways:
+ * <ul>
+ *     <li>{@code created}: memory-mapped from a file which doesn't exist yet, as on the first start on a host</li>
+ *     <li>{@code mapped}: memory-mapped from a file created by a previous JVM</li>
+ *     <li>{@code decoded}: decoded into the heap</li>
+ * </ul>
+ * The {@code jmhStartup} Gradle task runs this and writes the results to a JSON file named after the library version, e.g.
+ * {@code ./gradlew jmhStartup -PjmhArgs="-f 20 -c mapped"}. Options are {@code -f <forks per configuration>}, {@code -c <configurations>},
+ * {@code -jvmArgs <arguments of the forked JVMs, separated by spaces>} and {@code -rff <results file>}.
+ */
+public class StartupBenchmark {
+    private static final String[] PHASES = { "jvm", "json", "registry", "field", "constants", "first_call", "jit" };
+    private static final String[] CONFIGURATIONS = { "created", "mapped", "decoded" };
+
+    public static void main(String... args) throws IOException, InterruptedException {
+        int forks = 10;
+        List<String> configurations = Arrays.asList(CONFIGURATIONS);
+        List<String> jvmArgs = new ArrayList<>();
+        Path results = null;
+        for (int i = 0; i < args.length; i++) {
+            Preconditions.checkArgument(i + 1 < args.length, "missing value of option %s", args[i]);
+            switch (args[i]) {
+                case "-f":
+                    forks = Integer.parseInt(args[++i]);
+                    break;
+                case "-c":
+                    configurations = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-jvmArgs":
+                    jvmArgs.addAll(Arrays.asList(args[++i].trim().split("\\s+")));
+                    break;
+                case "-rff":
+                    results = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Usage: StartupBenchmark [-f <forks>] [-c <configurations>] [-jvmArgs <arguments>] [-rff <file>]");
+            }
+        }
+        Preconditions.checkArgument(forks > 0, "forks must be positive");
+
+        Path directory = Files.createTempDirectory("terraprojection-startup");
+        JsonArray json = new JsonArray();
+        try {
+            for (String configuration : configurations) {
+                Preconditions.checkArgument(Arrays.asList(CONFIGURATIONS).contains(configuration), "unknown configuration %s", configuration);
+                Map<String, long[][]> samples = new LinkedHashMap<>(); //phase -> {nanoseconds, peak heap} per fork
+                for (String phase : PHASES) {
+                    samples.put(phase, new long[forks][]);
+                }
+
+                Path mapped = directory.resolve("conformal-mapped.bin");
+                if ("mapped".equals(configuration)) { //the file is created by a first JVM, which isn't measured
+                    fork(jvmArgs, mapped.toString());
+                }
+                for (int i = 0; i < forks; i++) {
+                    String fieldFile;
+                    switch (configuration) {
+                        case "created":
+                            fieldFile = directory.resolve("conformal-created-" + i + ".bin").toString();
+                            break;
+                        case "mapped":
+                            fieldFile = mapped.toString();
+                            break;
+                        default:
+                            fieldFile = "";
+                    }
+                    Map<String, long[]> sample = fork(jvmArgs, fieldFile);
+                    for (String phase : PHASES) {
+                        samples.get(phase)[i] = Preconditions.checkNotNull(sample.get(phase), "fork didn't report phase %s", phase);
+                    }
+                }
+
+                System.out.printf("%n%s, %d forks:%n%-12s %12s %12s %12s %14s%n", configuration, forks,
+                        "phase", "min ms", "median ms", "max ms", "peak heap MiB");
+                long[] total = new long[forks];
+                for (String phase : PHASES) {
+                    long[][] phaseSamples = samples.get(phase);
+                    long[] nanos = new long[forks];
+                    long peakHeap = 0L;
+                    for (int i = 0; i < forks; i++) {
+                        nanos[i] = phaseSamples[i][0];
+                        total[i] += phaseSamples[i][0];
+                        peakHeap = Math.max(peakHeap, phaseSamples[i][1]);
+                    }
+                    print(phase, nanos, peakHeap);
+                    json.add(result(configuration, phase, nanos, peakHeap));
+                }
+                long peakHeap = Stream.of(PHASES).flatMap(phase -> Stream.of(samples.get(phase))).mapToLong(sample -> sample[1]).max().getAsLong();
+                print("total", total, peakHeap);
+                json.add(result(configuration, "total", total, peakHeap));
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+
+        if (results != null) {
+            if (results.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(results.toAbsolutePath().getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+            }
+            System.out.printf("%nResults written to %s%n", results);
+        }
+    }
+
+    /**
+     * Runs {@link Probe} in a new JVM.
+     *
+     * @return {nanoseconds, peak heap in bytes} for every phase
+     */
+    private static Map<String, long[]> fork(List<String> jvmArgs, String fieldFile) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-Dterraprojection.conformalField=" + fieldFile);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Probe.class.getName());
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Map<String, long[]> sample = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length == 3) {
+                    sample.put(parts[0], new long[]{ Long.parseLong(parts[1]), Long.parseLong(parts[2]) });
+                }
+            }
+        }
+        Preconditions.checkState(process.waitFor() == 0, "fork exited with code %s", process.exitValue());
+        return sample;
+    }
+
+    private static void print(String phase, long[] nanos, long peakHeap) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-12s %12.3f %12.3f %12.3f %14.1f%n", phase, sorted[0] / 1.0e6d, sorted[sorted.length / 2] / 1.0e6d,
+                sorted[sorted.length - 1] / 1.0e6d, peakHeap / (double) (1 << 20));
+    }
+
+    private static JsonObject result(String configuration, String phase, long[] nanos, long peakHeap) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        JsonObject result = new JsonObject();
+        result.addProperty("configuration", configuration);
+        result.addProperty("phase", phase);
+        result.addProperty("minMillis", sorted[0] / 1.0e6d);
+        result.addProperty("medianMillis", sorted[sorted.length / 2] / 1.0e6d);
+        result.addProperty("maxMillis", sorted[sorted.length - 1] / 1.0e6d);
+        result.addProperty("peakHeapBytes", peakHeap);
+        JsonArray samples = new JsonArray();
+        for (long sample : nanos) {
+            samples.add(sample / 1.0e6d);
+        }
+        result.add("samplesMillis", samples);
+        return result;
+    }
+
+    /**
+     * Goes through the phases of loading the BTE projection in a fresh JVM, and prints one line per phase with its name, how long it took in
+     * nanoseconds, and the peak heap usage during it in bytes.
+     */
+    public static class Probe {
+        private static final int BATCH_SIZE = 1 << 10;
+        private static final int BATCHES = 500;
+
+        private static List<MemoryPoolMXBean> heapPools;
+
+        public static void main(String... args) throws IOException {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool);
+                }
+            }
+            report("jvm", uptime * 1000000L, peakHeap());
+
+            resetPeakHeap();
+            long start = System.nanoTime();
+            String settings;
+            try (InputStream in = TerraProjectionConstants.class.getResourceAsStream("bte_projection_settings.json5")) {
+                settings = new String(StreamUtil.toByteArray(in), StandardCharsets.UTF_8);
+            }
+            new GsonBuilder().create();
+            JsonParser.parseString(settings);
+            report("json", System.nanoTime() - start, peakHeap());
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            Preconditions.checkState(!ProjectionRegistries.PROJECTIONS.isEmpty());
+            report("registry", System.nanoTime() - start, peakHeap());
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            new BTEDymaxionProjection();
+            report("field", System.nanoTime() - start, peakHeap());
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            GeographicProjection projection = TerraProjectionConstants.bteProjection();
+            report("constants", System.nanoTime() - start, peakHeap());
+
+            double[] geos = new double[BATCH_SIZE * 2];
+            Random random = new Random(1337L);
+            for (int i = 0; i < geos.length; i += 2) {
+                geos[i] = random.nextDouble() * 360.0d - 180.0d;
+                geos[i + 1] = Math.toDegrees(Math.asin(random.nextDouble() * 2.0d - 1.0d));
+            }
+            double[] pos = new double[2];
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            if (projection.fromGeo(geos[0], geos[1], pos, 0)) {
+                projection.toGeo(pos[0], pos[1], pos, 0);
+            }
+            report("first_call", System.nanoTime() - start, peakHeap());
+
+            //the JIT is done once batches are within 50% of the median of the last ones, which are assumed to run compiled code
+            resetPeakHeap();
+            long[] ends = new long[BATCHES + 1];
+            ends[0] = System.nanoTime();
+            for (int batch = 1; batch <= BATCHES; batch++) {
+                for (int i = 0; i < geos.length; i += 2) {
+                    if (projection.fromGeo(geos[i], geos[i + 1], pos, 0)) {
+                        projection.toGeo(pos[0], pos[1], pos, 0);
+                    }
+                }
+                ends[batch] = System.nanoTime();
+            }
+            long[] last = new long[BATCHES / 10];
+            for (int i = 0; i < last.length; i++) {
+                last[i] = ends[BATCHES - i] - ends[BATCHES - i - 1];
+            }
+            Arrays.sort(last);
+            long compiled = last[last.length / 2];
+            int batch = 1;
+            while (ends[batch] - ends[batch - 1] > compiled * 3 / 2) {
+                batch++;
+            }
+            report("jit", ends[batch] - ends[0], peakHeap());
+        }
+
+        private static void report(String phase, long nanos, long peakHeap) {
+            System.out.println(phase + ' ' + nanos + ' ' + peakHeap);
+        }
+
+        private static void resetPeakHeap() {
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        /**
+         * @return the sum of the peak usages of the heap's memory pools. As pools don't peak at the same time, this may be a bit more than the heap
+         * actually peaked at
+         */
+        private static long peakHeap() {
+            return heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.buildtheearth.terraprojection.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar batch kernels with the best ones available on the running JVM.
+ * <p>
+ * The Vector API kernels are only used if the benchmark is run on Java 17 or newer, which the {@code jmh} task takes care of.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchKernelsBenchmark {
+    private static final int COUNT = 4096;
+
+    @Param({ "scalar", "best" })
+    public String kernels;
+
+    private BatchKernels instance;
+    private double[] src;
+    private double[] dst;
+    private long[] valid;
+
+    @Setup
+    public void setup() {
+        this.instance = "scalar".equals(this.kernels) ? new ScalarBatchKernels() : BatchKernels.INSTANCE;
+
+        Random random = new Random(1337L);
+        this.src = new double[COUNT * 2];
+        for (int i = 0; i < COUNT; i++) {
+            this.src[2 * i] = random.nextDouble() * 360.0d - 180.0d;
+            this.src[2 * i + 1] = random.nextDouble() * 170.0d - 85.0d;
+        }
+        this.dst = new double[COUNT * 2];
+        this.valid = BatchUtils.newMask(COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] affine() {
+        this.instance.affine(this.src, this.dst, 0, COUNT, 0.8, -0.6, 12.0, 0.6, 0.8, -7.0);
+        return this.dst;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int checkRange() {
+        return this.instance.checkRange(this.src, 0, COUNT, this.valid, -180, -85, 180, 85);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] sinusoidalFromGeo() {
+        this.instance.sinusoidalFromGeo(this.src, this.dst, 0, COUNT);
+        return this.dst;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] mercatorFromGeo() {
+        this.instance.mercatorFromGeo(this.src, this.dst, 0, COUNT, 2048.0 / 360.0, 1024.0, -2048.0 / (2.0 * Math.PI), 1024.0);
+        return this.dst;
+    }
+}
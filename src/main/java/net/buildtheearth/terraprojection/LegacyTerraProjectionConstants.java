@@ -0,0 +1,21 @@
+package net.buildtheearth.terraprojection;
+
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+
+/**
+ * Keeps the constants {@link TerraProjectionConstants} used to declare available, both in source and in compiled code, without loading them when
+ * {@link TerraProjectionConstants} is initialized: the constants of an interface are only initialized when one of them is first read.
+ *
+ * @deprecated only implemented by {@link TerraProjectionConstants}, for compatibility
+ */
+@Deprecated
+public interface LegacyTerraProjectionConstants {
+    /**
+     * The projection used by BuildTheEarth's maps, loaded the first time this field is read.
+     *
+     * @deprecated use {@link TerraProjectionConstants#bteProjection()}, which returns the same projection. If loading the projection fails, this
+     * field can't be read for the rest of the JVM's lifetime, while {@link TerraProjectionConstants#bteProjection()} tries again
+     */
+    @Deprecated
+    GeographicProjection BTE_PROJECTION = TerraProjectionConstants.bteProjection();
+}
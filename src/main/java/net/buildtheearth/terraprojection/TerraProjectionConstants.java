@@ -7,8 +7,17 @@ import net.daporkchop.lib.binary.oio.StreamUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
-public class TerraProjectionConstants {
+@SuppressWarnings("deprecation")
+public class TerraProjectionConstants implements LegacyTerraProjectionConstants {
 
     public static final Gson GSON = new GsonBuilder().create();
 
@@ -22,15 +31,95 @@ public class TerraProjectionConstants {
      */
     public static final double EARTH_POLAR_CIRCUMFERENCE = 40008000;
 
-    public static final GeographicProjection BTE_PROJECTION;
+    /**
+     * The number of points converted back and forth by {@link #warmUp(boolean)}, which is enough for the JIT to compile the projection's hot paths
+     */
+    private static final int WARM_UP_POINTS = 1 << 17;
+
+    /**
+     * Runs {@link #warmUp(boolean)}'s tasks on a single daemon thread, which is only started when there is something to do
+     */
+    private static final ExecutorService WARM_UP_EXECUTOR = new ThreadPoolExecutor(0, 1, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+        Thread thread = new Thread(task, "TerraProjection warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The BTE projection, once it is loaded
+     */
+    private static volatile GeographicProjection bteProjectionInstance;
+
+    /**
+     * The futures returned by {@link #warmUp(boolean)}, without and with the JIT warm-up, guarded by {@link TerraProjectionConstants}' lock
+     */
+    private static CompletableFuture<GeographicProjection> loading;
+    private static CompletableFuture<GeographicProjection> warmingUp;
+
+    /**
+     * Gets the projection used by BuildTheEarth's maps.
+     * <p>
+     * It is loaded the first time this is called, which takes from a few hundred milliseconds to a couple of seconds, as the conformal Dymaxion
+     * projection's vector field needs to be loaded. Use {@link #warmUp(boolean)} to load it ahead of time. Once loaded, the projection, and therefore
+     * its vector field, are kept for the JVM's lifetime.
+     *
+     * @return the BTE projection
+     * @throws UncheckedIOException if the projection's settings can't be read. Loading it is attempted again on the next call
+     */
+    public static GeographicProjection bteProjection() {
+        GeographicProjection projection = bteProjectionInstance;
+        return projection != null ? projection : loadBteProjection();
+    }
+
+    /**
+     * Loads the BTE projection, unless another thread did while this one was waiting. Failures aren't kept, so that a later call can try again.
+     */
+    private static synchronized GeographicProjection loadBteProjection() {
+        if (bteProjectionInstance == null) {
+            bteProjectionInstance = GeographicProjection.parse(readBteProjectionSettings());
+        }
+        return bteProjectionInstance;
+    }
 
-    static {
+    private static String readBteProjectionSettings() {
         try(InputStream in = TerraProjectionConstants.class.getResourceAsStream("bte_projection_settings.json5")) {
             if(in == null) throw new IOException("Resource bte_projection_settings.json5 not found");
-            BTE_PROJECTION = GeographicProjection.parse(new String(StreamUtil.toByteArray(in)));
+            return new String(StreamUtil.toByteArray(in), StandardCharsets.UTF_8);
         } catch(IOException e) {
-            throw new RuntimeException(e);
+            throw new UncheckedIOException("Unable to load the BTE projection", e);
         }
     }
 
+    /**
+     * Loads {@link #bteProjection()} on a background thread, so that whichever thread needs it first doesn't have to wait for it.
+     * <p>
+     * The work is only done once, no matter how many times this is called, unless it failed.
+     *
+     * @param jit - whether or not to also convert points back and forth with a copy of the projection, so that its hot paths are compiled by the JIT
+     *            before they are first needed. The copy shares the projection's vector field, but not its statistics
+     * @return a future completed with the BTE projection once it is loaded and warmed up, or exceptionally if it can't be loaded
+     */
+    public static synchronized CompletableFuture<GeographicProjection> warmUp(boolean jit) {
+        if (loading == null || loading.isCompletedExceptionally()) {
+            loading = CompletableFuture.supplyAsync(TerraProjectionConstants::bteProjection, WARM_UP_EXECUTOR);
+            warmingUp = null;
+        }
+        if (jit && (warmingUp == null || warmingUp.isCompletedExceptionally())) {
+            warmingUp = loading.thenApplyAsync(projection -> {
+                GeographicProjection copy = GeographicProjection.parse(readBteProjectionSettings());
+                double[] pos = new double[2];
+                for (int i = 0; i < WARM_UP_POINTS; i++) { //points of a Fibonacci lattice, which covers the globe evenly
+                    double longitude = ((i * 0.6180339887498949d) % 1.0d) * 360.0d - 180.0d;
+                    double latitude = Math.toDegrees(Math.asin(2.0d * (i + 0.5d) / WARM_UP_POINTS - 1.0d));
+                    if (copy.fromGeo(longitude, latitude, pos, 0)) {
+                        copy.toGeo(pos[0], pos[1], pos, 0);
+                    }
+                }
+                return projection;
+            }, WARM_UP_EXECUTOR);
+        }
+
+        //each caller gets its own future, so that completing or cancelling it doesn't affect the others
+        return (jit ? warmingUp : loading).thenApply(Function.identity());
+    }
 }
@@ -35,6 +35,9 @@ public class ProjectionRegistries {
             .put("rotate", RotateProjectionTransform.class)
             .put("scale", ScaleProjectionTransform.class)
             .put("swap_axes", SwapAxesProjectionTransform.class)
+            .put("approximate", ApproximateProjectionTransform.class)
+            .put("cached", CachedProjectionTransform.class)
+            .put("instrumented", InstrumentedProjectionTransform.class)
             .build();
 
     /**
@@ -0,0 +1,277 @@
+package net.buildtheearth.terraprojection.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.buildtheearth.terraprojection.projection.transform.CachedProjectionTransform;
+import net.buildtheearth.terraprojection.projection.transform.InstrumentedProjectionTransform;
+import net.buildtheearth.terraprojection.util.LogLinearHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics about the calls made to the projections instrumented with a given name by {@link InstrumentedProjectionTransform}, e.g. all the
+ * projections of a world.
+ * <p>
+ * Instances are obtained from {@link ProjectionMetricsRegistry}, which exposes them over JMX. All recording is lock-free.
+ */
+public final class ProjectionMetrics implements ProjectionMetricsMBean {
+    @Getter
+    private final String name;
+
+    private final LongAdder fromGeoCount = new LongAdder();
+    private final LongAdder fromGeoOutOfBoundsCount = new LongAdder();
+    private final LongAdder toGeoCount = new LongAdder();
+    private final LongAdder toGeoOutOfBoundsCount = new LongAdder();
+    private final LongAdder batchPointCount = new LongAdder();
+    private final LongAdder batchOutOfBoundsCount = new LongAdder();
+
+    @Getter
+    private final LogLinearHistogram fromGeoLatency = new LogLinearHistogram();
+    @Getter
+    private final LogLinearHistogram toGeoLatency = new LogLinearHistogram();
+    @Getter
+    private final LogLinearHistogram batchLatency = new LogLinearHistogram();
+    @Getter
+    private final LogLinearHistogram batchSizes = new LogLinearHistogram();
+
+    /**
+     * The caches of the instrumented projections. They are weakly referenced, so that they can be collected along with their projection.
+     */
+    private final Set<CachedProjectionTransform> caches = Collections.newSetFromMap(new WeakHashMap<>());
+
+    ProjectionMetrics(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call to {@code fromGeo}.
+     *
+     * @param converted - whether or not the point was in bounds
+     */
+    public void recordFromGeo(boolean converted) {
+        this.fromGeoCount.increment();
+        if (!converted) {
+            this.fromGeoOutOfBoundsCount.increment();
+        }
+    }
+
+    /**
+     * Records a call to {@code toGeo}.
+     *
+     * @param converted - whether or not the point was in bounds
+     */
+    public void recordToGeo(boolean converted) {
+        this.toGeoCount.increment();
+        if (!converted) {
+            this.toGeoOutOfBoundsCount.increment();
+        }
+    }
+
+    /**
+     * Records a call to one of the batch or grid methods.
+     *
+     * @param count     - the number of points in the batch
+     * @param converted - the number of points which were in bounds
+     * @param nanos     - how long the call took
+     */
+    public void recordBatch(int count, int converted, long nanos) {
+        this.batchPointCount.add(count);
+        this.batchOutOfBoundsCount.add(count - converted);
+        this.batchSizes.record(count);
+        this.batchLatency.record(nanos);
+    }
+
+    /**
+     * Includes a cache's hits and misses in these metrics.
+     */
+    public void addCache(@NonNull CachedProjectionTransform cache) {
+        synchronized (this.caches) {
+            this.caches.add(cache);
+        }
+    }
+
+    private List<CachedProjectionTransform> caches() {
+        synchronized (this.caches) {
+            return new ArrayList<>(this.caches);
+        }
+    }
+
+    @Override
+    public long getFromGeoCount() {
+        return this.fromGeoCount.sum();
+    }
+
+    @Override
+    public long getFromGeoOutOfBoundsCount() {
+        return this.fromGeoOutOfBoundsCount.sum();
+    }
+
+    @Override
+    public double getFromGeoLatencyMean() {
+        return this.fromGeoLatency.getMean();
+    }
+
+    @Override
+    public long getFromGeoLatencyP50() {
+        return this.fromGeoLatency.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getFromGeoLatencyP99() {
+        return this.fromGeoLatency.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getFromGeoLatencyP999() {
+        return this.fromGeoLatency.getValueAtPercentile(99.9d);
+    }
+
+    @Override
+    public long getFromGeoLatencyMax() {
+        return this.fromGeoLatency.getMax();
+    }
+
+    @Override
+    public long getToGeoCount() {
+        return this.toGeoCount.sum();
+    }
+
+    @Override
+    public long getToGeoOutOfBoundsCount() {
+        return this.toGeoOutOfBoundsCount.sum();
+    }
+
+    @Override
+    public double getToGeoLatencyMean() {
+        return this.toGeoLatency.getMean();
+    }
+
+    @Override
+    public long getToGeoLatencyP50() {
+        return this.toGeoLatency.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getToGeoLatencyP99() {
+        return this.toGeoLatency.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getToGeoLatencyP999() {
+        return this.toGeoLatency.getValueAtPercentile(99.9d);
+    }
+
+    @Override
+    public long getToGeoLatencyMax() {
+        return this.toGeoLatency.getMax();
+    }
+
+    @Override
+    public double getOutOfBoundsRatio() {
+        long outOfBounds = this.getFromGeoOutOfBoundsCount() + this.getToGeoOutOfBoundsCount() + this.getBatchOutOfBoundsCount();
+        return (double) outOfBounds / (this.getFromGeoCount() + this.getToGeoCount() + this.getBatchPointCount());
+    }
+
+    @Override
+    public long getBatchCount() {
+        return this.batchSizes.getTotal();
+    }
+
+    @Override
+    public long getBatchPointCount() {
+        return this.batchPointCount.sum();
+    }
+
+    @Override
+    public long getBatchOutOfBoundsCount() {
+        return this.batchOutOfBoundsCount.sum();
+    }
+
+    @Override
+    public double getBatchSizeMean() {
+        return this.batchSizes.getMean();
+    }
+
+    @Override
+    public long getBatchSizeP50() {
+        return this.batchSizes.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getBatchSizeP99() {
+        return this.batchSizes.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getBatchSizeMax() {
+        return this.batchSizes.getMax();
+    }
+
+    @Override
+    public long getBatchLatencyP50() {
+        return this.batchLatency.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getBatchLatencyP99() {
+        return this.batchLatency.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getBatchLatencyMax() {
+        return this.batchLatency.getMax();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return this.caches().stream().mapToLong(CachedProjectionTransform::getHitCount).sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return this.caches().stream().mapToLong(CachedProjectionTransform::getMissCount).sum();
+    }
+
+    @Override
+    public long getCacheEvictionCount() {
+        return this.caches().stream().mapToLong(CachedProjectionTransform::getEvictionCount).sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = this.getCacheHitCount();
+        return (double) hits / (hits + this.getCacheMissCount());
+    }
+
+    /**
+     * Resets all counts and histograms. The counters of the caches are not reset.
+     */
+    @Override
+    public void reset() {
+        this.fromGeoCount.reset();
+        this.fromGeoOutOfBoundsCount.reset();
+        this.toGeoCount.reset();
+        this.toGeoOutOfBoundsCount.reset();
+        this.batchPointCount.reset();
+        this.batchOutOfBoundsCount.reset();
+        this.fromGeoLatency.reset();
+        this.toGeoLatency.reset();
+        this.batchLatency.reset();
+        this.batchSizes.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: fromGeo %d calls (%d out of bounds, latency %s), toGeo %d calls (%d out of bounds, latency %s), %d batches (%d points, "
+                             + "%d out of bounds, sizes %s, latency %s), cache hit rate %.3f", this.name,
+                this.getFromGeoCount(), this.getFromGeoOutOfBoundsCount(), this.fromGeoLatency,
+                this.getToGeoCount(), this.getToGeoOutOfBoundsCount(), this.toGeoLatency,
+                this.getBatchCount(), this.getBatchPointCount(), this.getBatchOutOfBoundsCount(), this.batchSizes, this.batchLatency,
+                this.getCacheHitRate());
+    }
+}
@@ -0,0 +1,80 @@
+package net.buildtheearth.terraprojection.metrics;
+
+/**
+ * The attributes and operations of {@link ProjectionMetrics} exposed over JMX.
+ * <p>
+ * Counts are totals since the metrics were created or last reset, so that monitoring systems can derive rates from them. Latencies are in
+ * nanoseconds, and only cover the calls which were sampled.
+ */
+public interface ProjectionMetricsMBean {
+    String getName();
+
+    long getFromGeoCount();
+
+    long getFromGeoOutOfBoundsCount();
+
+    double getFromGeoLatencyMean();
+
+    long getFromGeoLatencyP50();
+
+    long getFromGeoLatencyP99();
+
+    long getFromGeoLatencyP999();
+
+    long getFromGeoLatencyMax();
+
+    long getToGeoCount();
+
+    long getToGeoOutOfBoundsCount();
+
+    double getToGeoLatencyMean();
+
+    long getToGeoLatencyP50();
+
+    long getToGeoLatencyP99();
+
+    long getToGeoLatencyP999();
+
+    long getToGeoLatencyMax();
+
+    /**
+     * @return the fraction of single points and points of batches which were out of bounds
+     */
+    double getOutOfBoundsRatio();
+
+    long getBatchCount();
+
+    long getBatchPointCount();
+
+    long getBatchOutOfBoundsCount();
+
+    double getBatchSizeMean();
+
+    long getBatchSizeP50();
+
+    long getBatchSizeP99();
+
+    long getBatchSizeMax();
+
+    long getBatchLatencyP50();
+
+    long getBatchLatencyP99();
+
+    long getBatchLatencyMax();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    long getCacheEvictionCount();
+
+    /**
+     * @return the fraction of cached conversions which were answered from the cache, or {@link Double#NaN} if there were none
+     */
+    double getCacheHitRate();
+
+    /**
+     * Resets all counts and histograms.
+     */
+    void reset();
+}
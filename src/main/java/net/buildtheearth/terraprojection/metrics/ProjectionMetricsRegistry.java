@@ -0,0 +1,83 @@
+package net.buildtheearth.terraprojection.metrics;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link ProjectionMetrics} of every name, and exposes each of them as a JMX MBean named
+ * {@code net.buildtheearth.terraprojection:type=Projection,name="<name>"} on the platform MBean server.
+ */
+@UtilityClass
+public class ProjectionMetricsRegistry {
+    public final String DOMAIN = "net.buildtheearth.terraprojection";
+
+    private final Map<String, ProjectionMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the metrics of a name, creating and registering them if they don't exist yet.
+     *
+     * @param name - the name, e.g. the name of the world the projection is used in
+     * @return the metrics
+     */
+    public ProjectionMetrics get(@NonNull String name) {
+        return METRICS.computeIfAbsent(name, ProjectionMetricsRegistry::register);
+    }
+
+    /**
+     * @return the metrics of every name, by name
+     */
+    public Map<String, ProjectionMetrics> getAll() {
+        return Collections.unmodifiableMap(METRICS);
+    }
+
+    /**
+     * Removes the metrics of a name and unregisters their MBean. Projections which are still instrumented with that name keep recording into the
+     * removed metrics.
+     *
+     * @param name - the name
+     */
+    public void remove(@NonNull String name) {
+        if (METRICS.remove(name) != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+            } catch (InstanceNotFoundException e) {
+                //it was never registered, see register(String)
+            } catch (JMException e) {
+                throw new IllegalStateException("Unable to unregister the projection metrics of " + name, e);
+            }
+        }
+    }
+
+    /**
+     * @return the name of the MBean exposing the metrics of a name
+     */
+    public ObjectName objectName(@NonNull String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=Projection,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid projection metrics name: " + name, e);
+        }
+    }
+
+    private ProjectionMetrics register(String name) {
+        ProjectionMetrics metrics = new ProjectionMetrics(name);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName(name));
+        } catch (InstanceAlreadyExistsException e) {
+            //another copy of this library, e.g. shaded into another mod, uses the same name. Its metrics stay exposed, and these aren't
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register the projection metrics of " + name, e);
+        }
+        return metrics;
+    }
+}
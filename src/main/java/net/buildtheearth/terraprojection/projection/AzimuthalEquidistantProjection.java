@@ -51,12 +51,30 @@ public class AzimuthalEquidistantProjection implements GeographicProjection {
 
     @Override
     public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
         double phi1 = toRadians(this.centerY);
         double lambda0 = toRadians(this.centerX);
 
         double c = sqrt(x * x + y * y);
         if (c >= PI) {
-            throw OutOfProjectionBoundsException.get();
+            return false;
         }
 
         double phi = asin(cos(c) * sin(phi1) + (y * sin(c) * cos(phi1) / c));
@@ -72,12 +90,16 @@ public class AzimuthalEquidistantProjection implements GeographicProjection {
         double longitude = -modDegrees(toDegrees(lambda), 360.0d);
         double latitude = toDegrees(phi);
 
-        return new double[]{ longitude, latitude };
+        dst[off] = longitude;
+        dst[off + 1] = latitude;
+        return true;
     }
 
     @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        OutOfProjectionBoundsException.checkLongitudeLatitudeInRange(longitude, latitude);
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (abs(longitude) > 180 || abs(latitude) > 90) {
+            return false;
+        }
 
         double phi1 = toRadians(this.centerY);
         double lambda0 = toRadians(this.centerX);
@@ -90,7 +112,9 @@ public class AzimuthalEquidistantProjection implements GeographicProjection {
         double x = p * sin(t);
         double y = p * cos(t);
 
-        return new double[]{ x, y };
+        dst[off] = x;
+        dst[off + 1] = y;
+        return true;
     }
 
     @Override
@@ -1,27 +1,89 @@
 package net.buildtheearth.terraprojection.projection;
 
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import lombok.Getter;
 import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.util.IterationHistogram;
 import net.buildtheearth.terraprojection.util.MathUtils;
 
+import java.lang.reflect.Type;
+
 /**
  * Implementation of the Equal Earth projection
+ * <p>
+ * The inverse projection uses Newton's method, which stops early once it is within the tolerance given by {@code "precision"} (see {@link SolverPrecision}).
  *
  * @see <a href="https://en.wikipedia.org/wiki/Equal_Earth_projection"> Wikipedia's article on the Equal Earth projection</a>
  */
+@JsonAdapter(EqualEarthProjection.Deserializer.class)
 public class EqualEarthProjection implements GeographicProjection {
     private static final double A1 = 1.340264;
     private static final double A2 = -0.081106;
     private static final double A3 = 0.000893;
     private static final double A4 = 0.003796;
 
+    /**
+     * Maximum number of iterations for Newton's method
+     */
+    private static final int NEWTON = 5;
+
+    @Getter
+    private final SolverPrecision precision;
+
+    /**
+     * The number of iterations {@link #toGeo(double, double, double[], int)} needed for each point, only recorded once it is enabled, e.g. by
+     * {@link net.buildtheearth.terraprojection.projection.transform.InstrumentedProjectionTransform}
+     */
+    @Getter
+    private transient final IterationHistogram toGeoIterations = new IterationHistogram(NEWTON);
+
+    public EqualEarthProjection() {
+        this(null);
+    }
+
+    /**
+     * @param precision - how precisely to invert the projection. Defaults to {@link SolverPrecision#EXACT}
+     */
+    public EqualEarthProjection(SolverPrecision precision) {
+        this.precision = precision != null ? precision : SolverPrecision.EXACT;
+    }
+
+    static class Deserializer implements JsonDeserializer<EqualEarthProjection> {
+        public EqualEarthProjection deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new EqualEarthProjection(
+                    context.deserialize(jsonObject.get("precision"), SolverPrecision.class)
+            );
+        }
+    }
+
     @Override
     public double[] toGeo(double x, double y) {
+        double[] geo = new double[2];
+        this.toGeo(x, y, geo, 0);
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
 
         double theta = y / A1; //start with initial guess at y/A1 since A1 is by far the largest term
 
-        //Using newtons method to find theta
-        int newton = 5;
-        for (int i = 0; i < newton; i++) {
+        //Using newtons method to find theta, which is an angle on the sphere
+        double tolerance = this.precision.getTolerance();
+        int iterations = 0;
+        double step;
+        do {
             double tpow = theta;
 
             //calculate a pseudo-y - goal and pseduo-dy/dt at theta to use newtons method root finding
@@ -35,8 +97,10 @@ public class EqualEarthProjection implements GeographicProjection {
             py += A4 * (tpow *= theta); //A4 t^9
 
             //x = dx/dy
-            theta -= py / pdy;
-        }
+            step = py / pdy;
+            theta -= step;
+        } while (++iterations < NEWTON && Math.abs(step) > tolerance);
+        this.toGeoIterations.record(iterations);
 
         double thetasquare = theta * theta;
         double tpow = thetasquare;
@@ -47,13 +111,16 @@ public class EqualEarthProjection implements GeographicProjection {
         dx += 7 * A3 * (tpow *= thetasquare * thetasquare); //7 A3 t^6
         dx += 9 * A4 * (tpow *= thetasquare); //9 A4 t^8
 
-        return new double[]{ Math.toDegrees(x * dx * 3 / (2 * MathUtils.ROOT3 * Math.cos(theta))),
-                Math.toDegrees(Math.asin(Math.sin(theta) * 2 / MathUtils.ROOT3)) };
+        dst[off] = Math.toDegrees(x * dx * 3 / (2 * MathUtils.ROOT3 * Math.cos(theta)));
+        dst[off + 1] = Math.toDegrees(Math.asin(Math.sin(theta) * 2 / MathUtils.ROOT3));
+        return true;
     }
 
     @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-    	OutOfProjectionBoundsException.checkLongitudeLatitudeInRange(longitude, latitude);
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90) {
+            return false;
+        }
         double sintheta = MathUtils.ROOT3 * Math.sin(Math.toRadians(latitude)) / 2;
         double theta = Math.asin(sintheta);
         double tpow = theta;
@@ -69,7 +136,9 @@ public class EqualEarthProjection implements GeographicProjection {
 
         double costheta = Math.sqrt(1 - sintheta * sintheta);
 
-        return new double[]{ (2 * MathUtils.ROOT3 * Math.toRadians(longitude) * costheta / 3) / x, y };
+        dst[off] = (2 * MathUtils.ROOT3 * Math.toRadians(longitude) * costheta / 3) / x;
+        dst[off + 1] = y;
+        return true;
     }
 
     @Override
@@ -1,5 +1,8 @@
 package net.buildtheearth.terraprojection.projection;
 
+import net.buildtheearth.terraprojection.util.BatchKernels;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+
 /**
  * Implements the equirectangular map projection, which applies no transformation at all.
  * x and y are therefore the same as longitude and latitude (in degrees).
@@ -31,6 +34,39 @@ public class EquirectangularProjection implements GeographicProjection {
         return new double[]{ longitude, latitude };
     }
 
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        return this.fromGeo(x, y, dst, off); //both directions are the identity
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90) {
+            return false;
+        }
+        dst[off] = longitude;
+        dst[off + 1] = latitude;
+        return true;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return this.fromGeoBatch(src, dst, off, count, valid); //both directions are the identity
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, -180, -90, 180, 90);
+        if (src != dst) {
+            System.arraycopy(src, 2 * off, dst, 2 * off, 2 * count);
+        }
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
     /**
      * Gives an estimation of the scale of this projection.
      * This is just an estimation, as distortion is inevitable when projecting a sphere onto a flat surface,
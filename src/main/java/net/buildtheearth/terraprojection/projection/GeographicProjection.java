@@ -5,6 +5,7 @@ import lombok.NonNull;
 import net.buildtheearth.terraprojection.TerraProjectionConstants;
 import net.buildtheearth.terraprojection.config.ProjectionRegistries;
 import net.buildtheearth.terraprojection.config.TypedJsonAdapter;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 import net.buildtheearth.terraprojection.util.MathUtils;
 
 import java.util.Collections;
@@ -47,6 +48,155 @@ public interface GeographicProjection {
      */
     double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException;
 
+    /**
+     * Converts map coordinates to geographic coordinates, without allocating or throwing.
+     *
+     * @param x   - x map coordinate
+     * @param y   - y map coordinate
+     * @param dst - array to store the {longitude, latitude} result in, in degrees
+     * @param off - index in {@code dst} to store the result at
+     * @return whether or not the specified point on the projected space could be mapped to a point of the geographic space.
+     * If not, the contents of {@code dst} are undefined
+     */
+    default boolean toGeo(double x, double y, double[] dst, int off) {
+        try {
+            double[] geo = this.toGeo(x, y);
+            dst[off] = geo[0];
+            dst[off + 1] = geo[1];
+            return true;
+        } catch (OutOfProjectionBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts geographic coordinates to map coordinates, without allocating or throwing.
+     *
+     * @param longitude - longitude, in degrees
+     * @param latitude  - latitude, in degrees
+     * @param dst       - array to store the {x, y} result in
+     * @param off       - index in {@code dst} to store the result at
+     * @return whether or not the specified point on the geographic space could be mapped to a point of the projected space.
+     * If not, the contents of {@code dst} are undefined
+     */
+    default boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        try {
+            double[] pos = this.fromGeo(longitude, latitude);
+            dst[off] = pos[0];
+            dst[off + 1] = pos[1];
+            return true;
+        } catch (OutOfProjectionBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts a batch of map coordinates to geographic coordinates.
+     * <p>
+     * Coordinates are interleaved: the i-th point is stored at {@code 2 * i} and {@code 2 * i + 1}. {@code src} and {@code dst} may be the same array.
+     * Instead of throwing an {@link OutOfProjectionBoundsException}, points which cannot be mapped are set to {@link Double#NaN} and marked as invalid in {@code valid}.
+     *
+     * @param src   - {x, y} map coordinates
+     * @param dst   - array to store the {longitude, latitude} results in, in degrees
+     * @param off   - index of the first point to convert
+     * @param count - number of points to convert
+     * @param valid - validity bitmap, bit {@code i & 63} of {@code valid[i >>> 6]} is set if the i-th point could be converted and cleared otherwise
+     * @return the number of points that could be converted
+     * @see BatchUtils
+     */
+    default int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = 0;
+        for (int i = off, end = off + count; i < end; i++) {
+            if (this.toGeo(src[2 * i], src[2 * i + 1], dst, 2 * i)) {
+                BatchUtils.setValid(valid, i);
+                converted++;
+            } else {
+                BatchUtils.setInvalid(dst, valid, i);
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Converts a batch of geographic coordinates to map coordinates.
+     * <p>
+     * Coordinates are interleaved: the i-th point is stored at {@code 2 * i} and {@code 2 * i + 1}. {@code src} and {@code dst} may be the same array.
+     * Instead of throwing an {@link OutOfProjectionBoundsException}, points which cannot be mapped are set to {@link Double#NaN} and marked as invalid in {@code valid}.
+     *
+     * @param src   - {longitude, latitude} geographic coordinates, in degrees
+     * @param dst   - array to store the {x, y} results in
+     * @param off   - index of the first point to convert
+     * @param count - number of points to convert
+     * @param valid - validity bitmap, bit {@code i & 63} of {@code valid[i >>> 6]} is set if the i-th point could be converted and cleared otherwise
+     * @return the number of points that could be converted
+     * @see BatchUtils
+     */
+    default int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = 0;
+        for (int i = off, end = off + count; i < end; i++) {
+            if (this.fromGeo(src[2 * i], src[2 * i + 1], dst, 2 * i)) {
+                BatchUtils.setValid(valid, i);
+                converted++;
+            } else {
+                BatchUtils.setInvalid(dst, valid, i);
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Converts a regular grid of map coordinates to geographic coordinates.
+     * <p>
+     * The point in column {@code i} and row {@code j} is {@code {originX + i * stepX, originY + j * stepY}}, and its result is stored as the
+     * {@code (off + j * width + i)}-th point of {@code dst}, following the same conventions as {@link #toGeoBatch(double[], double[], int, int, long[])}.
+     * Implementations may take advantage of the grid's regularity, but must give the same results as converting each point individually
+     * (up to floating-point rounding where intermediate affine transforms are folded into the grid).
+     *
+     * @param originX - x coordinate of the first point of the grid
+     * @param originY - y coordinate of the first point of the grid
+     * @param stepX   - distance between two columns of the grid
+     * @param stepY   - distance between two rows of the grid
+     * @param width   - number of columns
+     * @param height  - number of rows
+     * @param dst     - array to store the {longitude, latitude} results in, in degrees
+     * @param off     - index of the point to store the first result at
+     * @param valid   - validity bitmap, with the same indices as {@code dst}
+     * @return the number of points that could be converted
+     * @see BatchUtils#fillGrid(double[], int, int, int, double, double, double, double, double, double)
+     */
+    default int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        BatchUtils.fillGrid(dst, off, width, height, originX, stepX, 0.0d, originY, 0.0d, stepY);
+        return this.toGeoBatch(dst, dst, off, width * height, valid);
+    }
+
+    /**
+     * Converts a regular grid of geographic coordinates to map coordinates.
+     * <p>
+     * The point in column {@code i} and row {@code j} is {@code {originLongitude + i * stepLongitude, originLatitude + j * stepLatitude}}, and its result is stored
+     * as the {@code (off + j * width + i)}-th point of {@code dst}, following the same conventions as {@link #fromGeoBatch(double[], double[], int, int, long[])}.
+     * Implementations may take advantage of the grid's regularity, but must give the same results as converting each point individually
+     * (up to floating-point rounding where intermediate affine transforms are folded into the grid).
+     *
+     * @param originLongitude - longitude of the first point of the grid, in degrees
+     * @param originLatitude  - latitude of the first point of the grid, in degrees
+     * @param stepLongitude   - distance between two columns of the grid, in degrees
+     * @param stepLatitude    - distance between two rows of the grid, in degrees
+     * @param width           - number of columns
+     * @param height          - number of rows
+     * @param dst             - array to store the {x, y} results in
+     * @param off             - index of the point to store the first result at
+     * @param valid           - validity bitmap, with the same indices as {@code dst}
+     * @return the number of points that could be converted
+     */
+    default int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        BatchUtils.fillGrid(dst, off, width, height, originLongitude, stepLongitude, 0.0d, originLatitude, 0.0d, stepLatitude);
+        return this.fromGeoBatch(dst, dst, off, width * height, valid);
+    }
+
     /**
      * Gives an estimation of the scale of this projection.
      * This is just an estimation, as distortion is inevitable when projecting a sphere onto a flat surface,
@@ -123,6 +273,34 @@ public interface GeographicProjection {
         return new double[]{ off[0] - x, off[1] - y };
     }
 
+    /**
+     * Same as {@link #vector(double, double, double, double)}, but without allocating or throwing.
+     *
+     * @param x     - x coordinate in the projected space
+     * @param y     - y coordinate in the projected space
+     * @param north - how far north to go, in meters on the geographic space
+     * @param east  - how far east to go, in meters on the geographic space
+     * @param dst   - array to store the {distance x, distance y} result in
+     * @param off   - index in {@code dst} to store the result at
+     * @return whether or not the vector could be computed
+     */
+    default boolean vector(double x, double y, double north, double east, double[] dst, int off) {
+        if (!this.toGeo(x, y, dst, off)) {
+            return false;
+        }
+
+        double lon = dst[off];
+        double lat = dst[off + 1];
+        if (!this.fromGeo(lon + east * 360.0 / (Math.cos(Math.toRadians(lat)) * TerraProjectionConstants.EARTH_CIRCUMFERENCE),
+                lat + north * 360.0 / TerraProjectionConstants.EARTH_POLAR_CIRCUMFERENCE, dst, off)) {
+            return false;
+        }
+
+        dst[off] -= x;
+        dst[off + 1] -= y;
+        return true;
+    }
+
     /**
      * Computes the Tissot's indicatrix of this projection at the given point (i.e. the distortion).
      *
@@ -224,6 +402,32 @@ public interface GeographicProjection {
         return this.azimuth(x, y, angle, 1E-5);
     }
 
+    /**
+     * Same as {@link #azimuth(double, double, float)}, but without allocating or throwing.
+     *
+     * @param x       - x coordinate of the point in the projected space
+     * @param y       - y coordinate of the point in the projected space
+     * @param angle   - the angle to convert, in degrees, in minecraft's coordinate system (angular origin at the positive side of the Z axis, positive clockwise)
+     * @param scratch - an array of at least 4 elements, used as temporary storage
+     * @return the corresponding azimuth, in degrees, counted positively clockwise, between 0° and 360°, or {@link Float#NaN} if the given point is outside the projection domain
+     */
+    default float azimuth(double x, double y, float angle, double[] scratch) {
+        double d = 1E-5;
+        double x2 = x - d * Math.sin(Math.toRadians(angle));
+        double y2 = y + d * Math.cos(Math.toRadians(angle));
+        if (!this.toGeo(x, y, scratch, 0) || !this.toGeo(x2, y2, scratch, 2)) {
+            return Float.NaN;
+        }
+        double dlon = Math.toRadians(scratch[2]) - Math.toRadians(scratch[0]);
+        double dlat = Math.toRadians(scratch[3]) - Math.toRadians(scratch[1]);
+        double a = Math.toDegrees(Math.atan2(dlat, dlon * Math.cos(Math.toRadians(scratch[1]))));
+        a = 90 - a;
+        if (a < 0) {
+            a += 360;
+        }
+        return (float) a;
+    }
+
     /**
      * @return any additional configuration properties used by this projection
      */
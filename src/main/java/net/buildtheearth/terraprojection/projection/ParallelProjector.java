@@ -0,0 +1,125 @@
+package net.buildtheearth.terraprojection.projection;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import lombok.NonNull;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Converts very large batches of coordinates by splitting them into work-stealing tasks on a {@link ForkJoinPool}.
+ * <p>
+ * Each task hands its slice to the projection's batch methods, so any projection specific batch kernels are used.
+ * Slices are always split on multiples of 64 points, which means that no two tasks ever write to the same word of the validity bitmap,
+ * and the whole batch's bitmap is filled in place without any merging or synchronization.
+ * <p>
+ * Projections are immutable, so a single instance can safely be used by all the tasks at once.
+ */
+@Getter
+public class ParallelProjector {
+    /**
+     * The default number of points below which a slice is not split any further.
+     */
+    public static final int DEFAULT_GRAIN_SIZE = 8192;
+
+    protected final ForkJoinPool pool;
+    protected final int grainSize;
+
+    /**
+     * Creates a parallel projector which runs on the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public ParallelProjector() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool - the pool to run the conversions on
+     */
+    public ParallelProjector(ForkJoinPool pool) {
+        this(pool, DEFAULT_GRAIN_SIZE);
+    }
+
+    /**
+     * @param pool      - the pool to run the conversions on
+     * @param grainSize - the number of points below which a slice is converted on a single thread. Must be a positive multiple of 64
+     */
+    public ParallelProjector(@NonNull ForkJoinPool pool, int grainSize) {
+        Preconditions.checkArgument(grainSize > 0 && (grainSize & 63) == 0, "grainSize must be a positive multiple of 64 (given: %s)", grainSize);
+        this.pool = pool;
+        this.grainSize = grainSize;
+    }
+
+    /**
+     * Same as {@link GeographicProjection#toGeoBatch(double[], double[], int, int, long[])}, but runs in parallel.
+     *
+     * @param projection - the projection to use
+     * @param src        - source map coordinates
+     * @param dst        - array to store the geographic coordinates in, may be the same as {@code src}
+     * @param off        - index of the first point to convert
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public int toGeo(@NonNull GeographicProjection projection, @NonNull double[] src, @NonNull double[] dst, int off, int count, @NonNull long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        return this.pool.invoke(new BatchTask(projection, true, src, dst, off, count, valid, this.grainSize));
+    }
+
+    /**
+     * Same as {@link GeographicProjection#fromGeoBatch(double[], double[], int, int, long[])}, but runs in parallel.
+     *
+     * @param projection - the projection to use
+     * @param src        - source geographic coordinates
+     * @param dst        - array to store the map coordinates in, may be the same as {@code src}
+     * @param off        - index of the first point to convert
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public int fromGeo(@NonNull GeographicProjection projection, @NonNull double[] src, @NonNull double[] dst, int off, int count, @NonNull long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        return this.pool.invoke(new BatchTask(projection, false, src, dst, off, count, valid, this.grainSize));
+    }
+
+    protected static class BatchTask extends RecursiveTask<Integer> {
+        protected final GeographicProjection projection;
+        protected final boolean toGeo;
+        protected final double[] src;
+        protected final double[] dst;
+        protected final int off;
+        protected final int count;
+        protected final long[] valid;
+        protected final int grainSize;
+
+        protected BatchTask(GeographicProjection projection, boolean toGeo, double[] src, double[] dst, int off, int count, long[] valid, int grainSize) {
+            this.projection = projection;
+            this.toGeo = toGeo;
+            this.src = src;
+            this.dst = dst;
+            this.off = off;
+            this.count = count;
+            this.valid = valid;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected Integer compute() {
+            int end = this.off + this.count;
+            //split on a multiple of 64 so that both halves own whole words of the bitmap
+            int split = (this.off + (this.count >>> 1)) & ~63;
+            if (this.count <= this.grainSize || split <= this.off || split >= end) {
+                return this.toGeo
+                        ? this.projection.toGeoBatch(this.src, this.dst, this.off, this.count, this.valid)
+                        : this.projection.fromGeoBatch(this.src, this.dst, this.off, this.count, this.valid);
+            }
+
+            BatchTask left = new BatchTask(this.projection, this.toGeo, this.src, this.dst, this.off, split - this.off, this.valid, this.grainSize);
+            BatchTask right = new BatchTask(this.projection, this.toGeo, this.src, this.dst, split, end - split, this.valid, this.grainSize);
+            left.fork();
+            int converted = right.compute();
+            return converted + left.join();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package net.buildtheearth.terraprojection.projection;
 
 import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.util.BatchKernels;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 
 /**
  * Implementation of the Sinusoidal projection.
@@ -19,6 +21,42 @@ public class SinusoidalProjection implements GeographicProjection {
         return new double[]{ longitude * Math.cos(Math.toRadians(latitude)), latitude };
     }
 
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        dst[off] = x / Math.cos(Math.toRadians(y));
+        dst[off + 1] = y;
+        return true;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90) {
+            return false;
+        }
+        dst[off] = longitude * Math.cos(Math.toRadians(latitude));
+        dst[off + 1] = latitude;
+        return true;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        BatchKernels.INSTANCE.sinusoidalToGeo(src, dst, off, count);
+        BatchUtils.setValid(valid, off, count);
+        return count;
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, -180, -90, 180, 90);
+        BatchKernels.INSTANCE.sinusoidalFromGeo(src, dst, off, count);
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
     @Override
     public double metersPerUnit() {
         return TerraProjectionConstants.EARTH_CIRCUMFERENCE / 360.0; //gotta make good on that exact area
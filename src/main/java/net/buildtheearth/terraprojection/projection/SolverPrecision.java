@@ -0,0 +1,106 @@
+package net.buildtheearth.terraprojection.projection;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * How precisely a projection solves the equations it has no closed-form solution for, e.g. with Newton's method.
+ * <p>
+ * Iterative solvers stop as soon as their last step moved the solution by no more than the tolerance, and otherwise after their usual number of
+ * iterations. Tolerances are angles on the Earth's surface, in radians: 1e-7 is about 64cm on the ground.
+ * <p>
+ * In JSON, a precision is given either as the name of one of the tiers below ({@code "fast"}, {@code "balanced"} or {@code "exact"}), or as a tolerance.
+ */
+@Getter
+@JsonAdapter(SolverPrecision.Adapter.class)
+public final class SolverPrecision {
+    /**
+     * Stops solvers once they are within about 64cm
+     */
+    public static final SolverPrecision FAST = new SolverPrecision("fast", 1.0e-7d);
+
+    /**
+     * Stops solvers once they are within about 0.6mm
+     */
+    public static final SolverPrecision BALANCED = new SolverPrecision("balanced", 1.0e-10d);
+
+    /**
+     * Only stops solvers early once they stopped moving, so results are the same as with a fixed number of iterations. This is the default.
+     */
+    public static final SolverPrecision EXACT = new SolverPrecision("exact", 0.0d);
+
+    /**
+     * @param tolerance - the largest step after which solvers stop, in radians
+     * @return a precision with the given tolerance
+     */
+    public static SolverPrecision of(double tolerance) {
+        Preconditions.checkArgument(tolerance >= 0.0d && tolerance < Double.POSITIVE_INFINITY, "tolerance must be positive and finite (given: %s)", tolerance);
+        return new SolverPrecision(null, tolerance);
+    }
+
+    /**
+     * @return the tier with the given name, case-insensitively
+     * @throws IllegalArgumentException if there is no such tier
+     */
+    public static SolverPrecision forName(String name) {
+        for (SolverPrecision tier : new SolverPrecision[]{ FAST, BALANCED, EXACT }) {
+            if (tier.name.equalsIgnoreCase(name)) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("unknown precision: " + name);
+    }
+
+    /**
+     * The name of this precision's tier, or {@code null} if it was given as a tolerance
+     */
+    private final String name;
+    private final double tolerance;
+
+    private SolverPrecision(String name, double tolerance) {
+        this.name = name;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public String toString() {
+        return this.name != null ? this.name : String.valueOf(this.tolerance);
+    }
+
+    static class Adapter extends TypeAdapter<SolverPrecision> {
+        @Override
+        public void write(JsonWriter out, SolverPrecision value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else if (value.name != null) {
+                out.value(value.name);
+            } else {
+                out.value(value.tolerance);
+            }
+        }
+
+        @Override
+        public SolverPrecision read(JsonReader in) throws IOException {
+            JsonToken token = in.peek();
+            try {
+                if (token == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                } else if (token == JsonToken.STRING) {
+                    return forName(in.nextString());
+                }
+                return of(in.nextDouble());
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -58,6 +58,24 @@ public class StereographicProjection implements GeographicProjection {
 
     @Override
     public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
         double phi1 = toRadians(this.centerY);
         double lambda0 = toRadians(this.centerX);
 
@@ -65,7 +83,7 @@ public class StereographicProjection implements GeographicProjection {
         double c = 2.0d * atan2(p, 2.0d);
 
         if (Double.isNaN(c)) {
-            throw OutOfProjectionBoundsException.get();
+            return false;
         }
 
         double phi = asin(cos(c) * sin(phi1) + (y * sin(c) * cos(phi1)) / p);
@@ -74,12 +92,16 @@ public class StereographicProjection implements GeographicProjection {
         double longitude = -modDegrees(toDegrees(lambda), 360.0d);
         double latitude = toDegrees(phi);
 
-        return new double[]{ longitude, latitude };
+        dst[off] = longitude;
+        dst[off + 1] = latitude;
+        return true;
     }
 
     @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        OutOfProjectionBoundsException.checkLongitudeLatitudeInRange(longitude, latitude);
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (abs(longitude) > 180 || abs(latitude) > 90) {
+            return false;
+        }
 
         double phi = toRadians(latitude - this.centerY);
         double lambda = -toRadians(longitude + this.centerX);
@@ -89,7 +111,9 @@ public class StereographicProjection implements GeographicProjection {
         double x = k * cos(phi) * sin(lambda);
         double y = k * sin(phi);
 
-        return new double[]{ x, y };
+        dst[off] = x;
+        dst[off + 1] = y;
+        return true;
     }
 
     @Override
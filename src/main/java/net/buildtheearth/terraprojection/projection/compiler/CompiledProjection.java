@@ -0,0 +1,97 @@
+package net.buildtheearth.terraprojection.projection.compiler;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+
+import java.util.Map;
+
+/**
+ * A projection which has been specialized by {@link ProjectionCompiler}.
+ * <p>
+ * The single-point conversion methods are implemented by a class generated for this projection alone, so the whole chain they call into can be inlined.
+ * Everything else, including the batch and grid methods (which already amortize the cost of virtual calls), is forwarded to the source projection.
+ * <p>
+ * Compiled projections cannot be serialized, use {@link #getSource()} instead.
+ */
+@Getter
+public abstract class CompiledProjection implements GeographicProjection {
+    /**
+     * The projection which was compiled.
+     */
+    protected final GeographicProjection source;
+
+    protected CompiledProjection(@NonNull GeographicProjection source) {
+        this.source = source;
+    }
+
+    @Override
+    public abstract boolean toGeo(double x, double y, double[] dst, int off);
+
+    @Override
+    public abstract boolean fromGeo(double longitude, double latitude, double[] dst, int off);
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return this.source.toGeoBatch(src, dst, off, count, valid);
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return this.source.fromGeoBatch(src, dst, off, count, valid);
+    }
+
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        return this.source.toGeoGrid(originX, originY, stepX, stepY, width, height, dst, off, valid);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        return this.source.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+    }
+
+    @Override
+    public double[] bounds() {
+        return this.source.bounds();
+    }
+
+    @Override
+    public boolean upright() {
+        return this.source.upright();
+    }
+
+    @Override
+    public double metersPerUnit() {
+        return this.source.metersPerUnit();
+    }
+
+    @Override
+    public Map<String, Object> properties() {
+        return this.source.properties();
+    }
+
+    @Override
+    public String toString() {
+        return "Compiled (" + this.source + ')';
+    }
+}
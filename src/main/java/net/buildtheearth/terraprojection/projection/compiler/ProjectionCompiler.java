@@ -0,0 +1,406 @@
+package net.buildtheearth.terraprojection.projection.compiler;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.transform.AffineProjectionTransform;
+import net.buildtheearth.terraprojection.projection.transform.ClampProjectionTransform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.*;
+import static java.lang.invoke.MethodType.*;
+
+/**
+ * Opt-in compiler which specializes a projection chain, so that its single-point conversions are monomorphic and can be fully inlined.
+ * <p>
+ * Call sites such as {@code delegate.toGeo(...)} in the transforms are shared by every chain loaded in the JVM, so they become megamorphic as soon as a few
+ * differently configured projections are in use, which prevents the JIT from inlining through them. This compiler instead turns each chain into a tree of
+ * {@link MethodHandle}s bound to the chain's own projections, and stores it in the {@code static final} fields of a class generated for that chain alone.
+ * The JIT treats these handles as constants, so it can inline the entire chain into the generated methods.
+ * <p>
+ * Affine transforms are inlined as plain arithmetic, and clamp transforms as a range check. Other projections are called directly through a handle bound to
+ * the instance itself.
+ */
+@UtilityClass
+public class ProjectionCompiler {
+    private static final MethodType CONVERT_TYPE = methodType(boolean.class, double.class, double.class, double[].class, int.class);
+
+    private static final MethodHandle AFFINE;
+    private static final MethodHandle AFFINE_IN_PLACE;
+    private static final MethodHandle IN_RANGE;
+    private static final MethodHandle CHECK_IN_PLACE;
+
+    private static final String GENERATED_NAME = "net/buildtheearth/terraprojection/projection/compiler/CompiledProjection$Pipeline";
+    private static final AtomicLong GENERATED_COUNT = new AtomicLong();
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            AFFINE = lookup.findStatic(ProjectionCompiler.class, "affine",
+                    methodType(double.class, double.class, double.class, double.class, double.class, double.class));
+            AFFINE_IN_PLACE = lookup.findStatic(ProjectionCompiler.class, "affineInPlace",
+                    methodType(boolean.class, double.class, double.class, double.class, double.class, double.class, double.class,
+                            boolean.class, double.class, double.class, double[].class, int.class));
+            IN_RANGE = lookup.findStatic(ProjectionCompiler.class, "inRange",
+                    methodType(boolean.class, double.class, double.class, double.class, double.class, double.class, double.class));
+            CHECK_IN_PLACE = lookup.findStatic(ProjectionCompiler.class, "checkInPlace",
+                    methodType(boolean.class, double.class, double.class, double.class, double.class,
+                            boolean.class, double.class, double.class, double[].class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Compiles the given projection.
+     *
+     * @param projection - the projection to compile
+     * @return a projection equivalent to the given one, whose single-point conversions are specialized for it
+     */
+    public static CompiledProjection compile(@NonNull GeographicProjection projection) {
+        if (projection instanceof CompiledProjection) {
+            return (CompiledProjection) projection;
+        }
+
+        MethodHandle[] handles = { toGeoHandle(projection), fromGeoHandle(projection) };
+        String name = GENERATED_NAME + GENERATED_COUNT.getAndIncrement();
+        try {
+            Class<?> clazz = new PipelineClassLoader(CompiledProjection.class.getClassLoader(), handles).define(name.replace('/', '.'), generate(name));
+            return (CompiledProjection) clazz.getConstructor(GeographicProjection.class).newInstance(projection);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to compile " + projection, e);
+        }
+    }
+
+    /**
+     * Called by the static initializer of the generated classes to retrieve their method handles.
+     *
+     * @param clazz - the generated class
+     * @return the class' {toGeo, fromGeo} handles
+     */
+    public static MethodHandle[] handles(@NonNull Class<?> clazz) {
+        return ((PipelineClassLoader) clazz.getClassLoader()).handles.clone();
+    }
+
+    /**
+     * @return a handle of type {@code (double x, double y, double[] dst, int off)boolean} implementing {@link GeographicProjection#toGeo(double, double, double[], int)}
+     */
+    static MethodHandle toGeoHandle(GeographicProjection projection) {
+        if (projection instanceof AffineProjectionTransform) {
+            AffineProjectionTransform affine = (AffineProjectionTransform) projection;
+            double[] m = affine.getToGeoMatrix();
+            MethodHandle target = toGeoHandle(affine.getBase());
+
+            //(x, y, dst, off) -> target(m00 * x + m01 * y + m02, m10 * x + m11 * y + m12, dst, off)
+            MethodHandle x = insertArguments(AFFINE, 0, m[0], m[1], m[2]);
+            MethodHandle y = insertArguments(AFFINE, 0, m[3], m[4], m[5]);
+            MethodHandle permuted = permuteArguments(target,
+                    methodType(boolean.class, double.class, double.class, double.class, double.class, double[].class, int.class), 1, 0, 4, 5);
+            return foldArguments(foldArguments(permuted, dropArguments(y, 0, double.class)), x);
+        } else if (projection instanceof ClampProjectionTransform) {
+            ClampProjectionTransform clamp = (ClampProjectionTransform) projection;
+            MethodHandle test = insertArguments(IN_RANGE, 0, clamp.getMinX(), clamp.getMaxX(), clamp.getMinY(), clamp.getMaxY());
+            return guardWithTest(dropArguments(test, 2, double[].class, int.class),
+                    toGeoHandle(clamp.getDelegate()),
+                    dropArguments(constant(boolean.class, false), 0, CONVERT_TYPE.parameterList()));
+        } else {
+            return boundHandle(projection, "toGeo");
+        }
+    }
+
+    /**
+     * @return a handle of type {@code (double longitude, double latitude, double[] dst, int off)boolean} implementing {@link GeographicProjection#fromGeo(double, double, double[], int)}
+     */
+    static MethodHandle fromGeoHandle(GeographicProjection projection) {
+        if (projection instanceof AffineProjectionTransform) {
+            AffineProjectionTransform affine = (AffineProjectionTransform) projection;
+            double[] m = affine.getFromGeoMatrix();
+            return foldArguments(insertArguments(AFFINE_IN_PLACE, 0, m[0], m[1], m[2], m[3], m[4], m[5]), fromGeoHandle(affine.getBase()));
+        } else if (projection instanceof ClampProjectionTransform) {
+            ClampProjectionTransform clamp = (ClampProjectionTransform) projection;
+            MethodHandle check = insertArguments(CHECK_IN_PLACE, 0, clamp.getMinX(), clamp.getMaxX(), clamp.getMinY(), clamp.getMaxY());
+            return foldArguments(check, fromGeoHandle(clamp.getDelegate()));
+        } else {
+            return boundHandle(projection, "fromGeo");
+        }
+    }
+
+    private static MethodHandle boundHandle(GeographicProjection projection, String name) {
+        MethodHandle handle;
+        try { //prefer linking against the exact class, which makes devirtualization trivial
+            handle = publicLookup().findVirtual(projection.getClass(), name, CONVERT_TYPE);
+        } catch (ReflectiveOperationException e) {
+            try {
+                handle = publicLookup().findVirtual(GeographicProjection.class, name, CONVERT_TYPE);
+            } catch (ReflectiveOperationException e1) {
+                throw new AssertionError(e1);
+            }
+        }
+        return handle.bindTo(projection);
+    }
+
+    private static double affine(double a, double b, double c, double x, double y) {
+        return x * a + y * b + c;
+    }
+
+    private static boolean affineInPlace(double m00, double m01, double m02, double m10, double m11, double m12,
+                                         boolean converted, double longitude, double latitude, double[] dst, int off) {
+        if (!converted) {
+            return false;
+        }
+        double x = dst[off];
+        double y = dst[off + 1];
+        dst[off] = x * m00 + y * m01 + m02;
+        dst[off + 1] = x * m10 + y * m11 + m12;
+        return true;
+    }
+
+    private static boolean inRange(double minX, double maxX, double minY, double maxY, double x, double y) {
+        return !(x < minX || x > maxX || y < minY || y > maxY);
+    }
+
+    private static boolean checkInPlace(double minX, double maxX, double minY, double maxY,
+                                        boolean converted, double longitude, double latitude, double[] dst, int off) {
+        return converted && inRange(minX, maxX, minY, maxY, dst[off], dst[off + 1]);
+    }
+
+    /**
+     * Generates a class extending {@link CompiledProjection}, equivalent to:
+     * <pre>{@code
+     * public final class <name> extends CompiledProjection {
+     *     private static final MethodHandle TO_GEO;
+     *     private static final MethodHandle FROM_GEO;
+     *
+     *     static {
+     *         MethodHandle[] handles = ProjectionCompiler.handles(<name>.class);
+     *         TO_GEO = handles[0];
+     *         FROM_GEO = handles[1];
+     *     }
+     *
+     *     public <name>(GeographicProjection source) {
+     *         super(source);
+     *     }
+     *
+     *     public boolean toGeo(double x, double y, double[] dst, int off) {
+     *         return (boolean) TO_GEO.invokeExact(x, y, dst, off);
+     *     }
+     *
+     *     public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+     *         return (boolean) FROM_GEO.invokeExact(longitude, latitude, dst, off);
+     *     }
+     * }
+     * }</pre>
+     */
+    private static byte[] generate(String name) {
+        String superName = "net/buildtheearth/terraprojection/projection/compiler/CompiledProjection";
+        String handleName = "java/lang/invoke/MethodHandle";
+        String handleDesc = "L" + handleName + ";";
+        String convertDesc = CONVERT_TYPE.toMethodDescriptorString();
+
+        ClassFileWriter w = new ClassFileWriter();
+        int thisClass = w.classRef(name);
+        int superClass = w.classRef(superName);
+        int toGeoField = w.fieldRef(name, "TO_GEO", handleDesc);
+        int fromGeoField = w.fieldRef(name, "FROM_GEO", handleDesc);
+        int handles = w.methodRef("net/buildtheearth/terraprojection/projection/compiler/ProjectionCompiler", "handles", "(Ljava/lang/Class;)[" + handleDesc);
+        int superInit = w.methodRef(superName, "<init>", "(Lnet/buildtheearth/terraprojection/projection/GeographicProjection;)V");
+        int invokeExact = w.methodRef(handleName, "invokeExact", convertDesc);
+
+        w.field(0x001A, "TO_GEO", handleDesc); //private static final
+        w.field(0x001A, "FROM_GEO", handleDesc);
+
+        w.method(0x0008, "<clinit>", "()V", 3, 0, new byte[]{ //static
+                0x13, hi(thisClass), lo(thisClass), //ldc_w <name>.class
+                (byte) 0xB8, hi(handles), lo(handles), //invokestatic ProjectionCompiler.handles
+                0x59, //dup
+                0x03, 0x32, //iconst_0, aaload
+                (byte) 0xB3, hi(toGeoField), lo(toGeoField), //putstatic TO_GEO
+                0x04, 0x32, //iconst_1, aaload
+                (byte) 0xB3, hi(fromGeoField), lo(fromGeoField), //putstatic FROM_GEO
+                (byte) 0xB1 //return
+        });
+        w.method(0x0001, "<init>", "(Lnet/buildtheearth/terraprojection/projection/GeographicProjection;)V", 2, 2, new byte[]{ //public
+                0x2A, 0x2B, //aload_0, aload_1
+                (byte) 0xB7, hi(superInit), lo(superInit), //invokespecial CompiledProjection.<init>
+                (byte) 0xB1 //return
+        });
+        for (String method : new String[]{ "toGeo", "fromGeo" }) {
+            int field = "toGeo".equals(method) ? toGeoField : fromGeoField;
+            w.method(0x0001, method, convertDesc, 7, 7, new byte[]{ //public
+                    (byte) 0xB2, hi(field), lo(field), //getstatic
+                    0x27, 0x29, //dload_1, dload_3
+                    0x19, 5, 0x15, 6, //aload 5, iload 6
+                    (byte) 0xB6, hi(invokeExact), lo(invokeExact), //invokevirtual MethodHandle.invokeExact
+                    (byte) 0xAC //ireturn
+            });
+        }
+        return w.toByteArray(0x0031, thisClass, superClass); //public final super
+    }
+
+    private static byte hi(int index) {
+        return (byte) (index >>> 8);
+    }
+
+    private static byte lo(int index) {
+        return (byte) index;
+    }
+
+    /**
+     * Loads a single generated class, and holds the method handles it should be initialized with.
+     */
+    private static final class PipelineClassLoader extends ClassLoader {
+        private final MethodHandle[] handles;
+
+        PipelineClassLoader(ClassLoader parent, MethodHandle[] handles) {
+            super(parent);
+            this.handles = handles;
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Just enough of a class file writer to emit the classes generated by {@link #generate(String)}.
+     */
+    private static final class ClassFileWriter {
+        private final ByteArrayOutputStream constantsBytes = new ByteArrayOutputStream();
+        private final DataOutputStream constants = new DataOutputStream(this.constantsBytes);
+        private final Map<String, Integer> constantIndices = new HashMap<>();
+        private int constantCount = 1;
+
+        private final List<byte[]> fields = new ArrayList<>();
+        private final List<byte[]> methods = new ArrayList<>();
+
+        int utf8(String value) {
+            return this.constant("U" + value, out -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int nameIndex = this.utf8(internalName);
+            return this.constant("C" + internalName, out -> {
+                out.writeByte(7);
+                out.writeShort(nameIndex);
+            });
+        }
+
+        int fieldRef(String owner, String name, String desc) {
+            return this.memberRef(9, owner, name, desc);
+        }
+
+        int methodRef(String owner, String name, String desc) {
+            return this.memberRef(10, owner, name, desc);
+        }
+
+        private int memberRef(int tag, String owner, String name, String desc) {
+            int ownerIndex = this.classRef(owner);
+            int nameIndex = this.utf8(name);
+            int descIndex = this.utf8(desc);
+            int nameAndType = this.constant("N" + name + ' ' + desc, out -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descIndex);
+            });
+            return this.constant(tag + owner + '.' + name + ' ' + desc, out -> {
+                out.writeByte(tag);
+                out.writeShort(ownerIndex);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int constant(String key, ConstantWriter writer) {
+            Integer index = this.constantIndices.get(key);
+            if (index == null) {
+                try {
+                    writer.write(this.constants);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                this.constantIndices.put(key, index = this.constantCount++);
+            }
+            return index;
+        }
+
+        void field(int access, String name, String desc) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeShort(access);
+                out.writeShort(this.utf8(name));
+                out.writeShort(this.utf8(desc));
+                out.writeShort(0); //attributes
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            this.fields.add(bytes.toByteArray());
+        }
+
+        void method(int access, String name, String desc, int maxStack, int maxLocals, byte[] code) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeShort(access);
+                out.writeShort(this.utf8(name));
+                out.writeShort(this.utf8(desc));
+                out.writeShort(1); //attributes
+                out.writeShort(this.utf8("Code"));
+                out.writeInt(12 + code.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(code.length);
+                out.write(code);
+                out.writeShort(0); //exception table
+                out.writeShort(0); //attributes
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            this.methods.add(bytes.toByteArray());
+        }
+
+        byte[] toByteArray(int access, int thisClass, int superClass) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0); //minor version
+                out.writeShort(52); //major version (java 8)
+                out.writeShort(this.constantCount);
+                this.constants.flush();
+                this.constantsBytes.writeTo(out);
+                out.writeShort(access);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(0); //interfaces
+                out.writeShort(this.fields.size());
+                for (byte[] field : this.fields) {
+                    out.write(field);
+                }
+                out.writeShort(this.methods.size());
+                for (byte[] method : this.methods) {
+                    out.write(method);
+                }
+                out.writeShort(0); //attributes
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -1,14 +1,22 @@
 package net.buildtheearth.terraprojection.projection.dymaxion;
 
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import net.buildtheearth.terraprojection.projection.SolverPrecision;
+import net.buildtheearth.terraprojection.util.FastMath;
+import net.buildtheearth.terraprojection.util.JsonUtils;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 import net.buildtheearth.terraprojection.util.MathUtils;
 
+import java.lang.reflect.Type;
+
 /**
  * Implementation of the BTE modified Dynmaxion projection.
  *
  * @see DymaxionProjection
  * @see ConformalDynmaxionProjection
  */
+@JsonAdapter(BTEDymaxionProjection.Deserializer.class)
 public class BTEDymaxionProjection extends ConformalDynmaxionProjection {
 
     protected static final double THETA = Math.toRadians(-150);
@@ -25,11 +33,87 @@ public class BTEDymaxionProjection extends ConformalDynmaxionProjection {
     protected static final double ALEUTIAN_M = (BERING_Y - ALEUTIAN_Y) / (BERING_X - ALEUTIAN_XR);
     protected static final double ALEUTIAN_B = BERING_Y - ALEUTIAN_M * BERING_X;
 
+    /**
+     * The lines bounding the areas {@link #isEurasianPart(double, double)} is constant on, as {a, b, c} for {@code a * x + b * y + c = 0}
+     */
+    private static final double[][] EURASIAN_CUT_LINES = {
+            { 1, 0, 0 },
+            { 1, 0, 0.5 * ARC },
+            { 0, 1, -MathUtils.ROOT3 * ARC / 4 },
+            { 0, 1, -ALEUTIAN_Y },
+            { 0, 1, -BERING_Y },
+            { 0, 1, -ARCTIC_Y },
+            { 1, 1, -(ALEUTIAN_Y + ALEUTIAN_XL) },
+            { 1, 0, -BERING_X },
+            { -ARCTIC_M, 1, -ARCTIC_B },
+            { -ALEUTIAN_M, 1, -ALEUTIAN_B }
+    };
+
+    public BTEDymaxionProjection() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param singlePrecision - whether or not to store the vector field in single precision. Defaults to {@code false}
+     */
+    public BTEDymaxionProjection(Boolean singlePrecision) {
+        this(singlePrecision, null, null);
+    }
+
+    /**
+     * @param singlePrecision - whether or not to store the vector field in single precision. Defaults to {@code false}
+     * @param interpolation   - how to interpolate the vector field. Defaults to {@link Interpolation#LINEAR}
+     */
+    public BTEDymaxionProjection(Boolean singlePrecision, Interpolation interpolation) {
+        this(singlePrecision, interpolation, null);
+    }
+
+    /**
+     * @param singlePrecision - whether or not to store the vector field in single precision. Defaults to {@code false}
+     * @param interpolation   - how to interpolate the vector field. Defaults to {@link Interpolation#LINEAR}
+     * @param precision       - how precisely to invert the projection and the vector field. Defaults to {@link SolverPrecision#EXACT}
+     */
+    public BTEDymaxionProjection(Boolean singlePrecision, Interpolation interpolation, SolverPrecision precision) {
+        this(singlePrecision, interpolation, precision, null);
+    }
+
+    /**
+     * @param singlePrecision - whether or not to store the vector field in single precision. Defaults to {@code false}
+     * @param interpolation   - how to interpolate the vector field. Defaults to {@link Interpolation#LINEAR}
+     * @param precision       - how precisely to invert the projection and the vector field. Defaults to {@link SolverPrecision#EXACT}
+     * @param fastMath        - whether or not to approximate the trigonometric functions with {@link FastMath}. Defaults to {@code false}
+     */
+    public BTEDymaxionProjection(Boolean singlePrecision, Interpolation interpolation, SolverPrecision precision, Boolean fastMath) {
+        super(singlePrecision, interpolation, precision, fastMath);
+    }
+
+    static class Deserializer implements JsonDeserializer<BTEDymaxionProjection> {
+        public BTEDymaxionProjection deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new BTEDymaxionProjection(
+                    JsonUtils.getNullableBoolean(jsonObject, "singlePrecision"),
+                    context.deserialize(jsonObject.get("interpolation"), Interpolation.class),
+                    context.deserialize(jsonObject.get("precision"), SolverPrecision.class),
+                    JsonUtils.getNullableBoolean(jsonObject, "fastMath")
+            );
+        }
+    }
+
     @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        double[] c = super.fromGeo(longitude, latitude);
-        double x = c[0];
-        double y = c[1];
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (!super.fromGeo(longitude, latitude, dst, off)) {
+            return false;
+        }
+        this.fromDymaxionSpace(dst, off);
+        return true;
+    }
+
+    /**
+     * Moves a point projected by the conformal Dymaxion projection to its position on the modified map, in-place.
+     */
+    private void fromDymaxionSpace(double[] dst, int off) {
+        double x = dst[off];
+        double y = dst[off + 1];
 
         boolean easia = this.isEurasianPart(x, y);
 
@@ -46,22 +130,169 @@ public class BTEDymaxionProjection extends ConformalDynmaxionProjection {
             x -= ARC;
         }
 
-        c[0] = y;
-        c[1] = -x;
-        return c;
+        dst[off] = y;
+        dst[off + 1] = -x;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        boolean easia = isEurasianSide(x, y);
+        toDymaxionSpace(easia, x, y, dst, off);
+        x = dst[off];
+        y = dst[off + 1];
+
+        //check to make sure still in right part
+        if (easia != this.isEurasianPart(x, y)) {
+            return false;
+        }
+
+        return super.toGeo(x, y, dst, off);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each tile is also checked for being entirely in the Eurasian part of the map (or entirely outside of it), in which case it is moved to the conformal
+     * Dymaxion projection's space as a whole.
+     */
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        double[] corners = new double[8];
+        int converted = 0;
+        for (int tileY = 0; tileY < height; tileY += GRID_TILE) {
+            int endY = Math.min(tileY + GRID_TILE, height);
+            for (int tileX = 0; tileX < width; tileX += GRID_TILE) {
+                int endX = Math.min(tileX + GRID_TILE, width);
+                double x0 = originX + tileX * stepX;
+                double y0 = originY + tileY * stepY;
+                double x1 = originX + (endX - 1) * stepX;
+                double y1 = originY + (endY - 1) * stepY;
+
+                //the Eurasian part is to the right of a non-increasing function of y, so its lower left corner decides if the tile is entirely in it,
+                // and its upper right corner decides if the tile is entirely outside of it
+                int tileFace = -1;
+                boolean tileEasia = isEurasianSide(Math.min(x0, x1), Math.min(y0, y1));
+                if (tileEasia || !isEurasianSide(Math.max(x0, x1), Math.max(y0, y1))) {
+                    //the tile is moved by a rigid transformation, so its image is the convex hull of its transformed corners
+                    toDymaxionSpace(tileEasia, x0, y0, corners, 0);
+                    toDymaxionSpace(tileEasia, x1, y0, corners, 2);
+                    toDymaxionSpace(tileEasia, x0, y1, corners, 4);
+                    toDymaxionSpace(tileEasia, x1, y1, corners, 6);
+                    tileFace = findTriangleGrid(corners[0], corners[1]);
+                    for (int k = 2; k < 8 && tileFace != -1; k += 2) {
+                        if (findTriangleGrid(corners[k], corners[k + 1]) != tileFace) {
+                            tileFace = -1;
+                        }
+                    }
+                }
+
+                for (int j = tileY; j < endY; j++) {
+                    double y = originY + j * stepY;
+                    for (int i = tileX; i < endX; i++) {
+                        double x = originX + i * stepX;
+                        int index = off + j * width + i;
+                        if (tileFace != -1 ? this.toGeoOnFace(tileEasia, tileFace, x, y, dst, 2 * index) : this.toGeo(x, y, dst, 2 * index)) {
+                            BatchUtils.setValid(valid, index);
+                            converted++;
+                        } else {
+                            BatchUtils.setInvalid(dst, valid, index);
+                        }
+                    }
+                }
+            }
+        }
+        return converted;
+    }
+
+    private boolean toGeoOnFace(boolean easia, int face, double x, double y, double[] dst, int off) {
+        toDymaxionSpace(easia, x, y, dst, off);
+        x = dst[off];
+        y = dst[off + 1];
+        return easia == this.isEurasianPart(x, y) && this.toGeoOnFace(face, x, y, dst, off);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        int converted = super.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+        for (int i = off, end = off + width * height; i < end; i++) {
+            if (BatchUtils.isValid(valid, i)) {
+                this.fromDymaxionSpace(dst, 2 * i);
+            }
+        }
+        return converted;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The quadrilateral also has to be entirely on one side of the cut through the Bering strait.
+     */
     @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        boolean easia;
+    public boolean isSmooth(double[] corners) {
+        double minX = Math.min(Math.min(corners[0], corners[2]), Math.min(corners[4], corners[6]));
+        double minY = Math.min(Math.min(corners[1], corners[3]), Math.min(corners[5], corners[7]));
+        double maxX = Math.max(Math.max(corners[0], corners[2]), Math.max(corners[4], corners[6]));
+        double maxY = Math.max(Math.max(corners[1], corners[3]), Math.max(corners[5], corners[7]));
+        boolean easia = isEurasianSide(minX, minY);
+        if (!easia && isEurasianSide(maxX, maxY)) {
+            return false;
+        }
+
+        double[] moved = new double[8];
+        for (int i = 0; i < 8; i += 2) {
+            toDymaxionSpace(easia, corners[i], corners[i + 1], moved, i);
+        }
+        return !crossesEurasianCut(moved) && super.isSmooth(moved);
+    }
+
+    /**
+     * @return whether or not {@link #isEurasianPart(double, double)} may change within the given convex quadrilateral
+     */
+    private static boolean crossesEurasianCut(double[] corners) {
+        boolean allRight = true;
+        boolean allLeft = true;
+        for (int i = 0; i < 8; i += 2) {
+            allRight &= corners[i] > 0;
+            allLeft &= corners[i] < -0.5 * ARC;
+        }
+        if (allRight || allLeft) {
+            return false;
+        }
+
+        //isEurasianPart only compares the point against these lines, so it is constant on convex areas which don't cross any of them
+        for (double[] line : EURASIAN_CUT_LINES) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < 8; i += 2) {
+                double d = line[0] * corners[i] + line[1] * corners[i + 1] + line[2];
+                min = Math.min(min, d);
+                max = Math.max(max, d);
+            }
+            if (min <= 1e-9d && max >= -1e-9d) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether or not the given point of the modified map should be moved as part of Eurasia
+     */
+    private static boolean isEurasianSide(double x, double y) {
         if (y < 0) {
-            easia = x > 0;
+            return x > 0;
         } else if (y > ARC / 2) {
-            easia = x > -MathUtils.ROOT3 * ARC / 2;
+            return x > -MathUtils.ROOT3 * ARC / 2;
         } else {
-            easia = y * -MathUtils.ROOT3 < x;
+            return y * -MathUtils.ROOT3 < x;
         }
+    }
 
+    /**
+     * Moves a point of the modified map to its position in the conformal Dymaxion projection's space.
+     */
+    private static void toDymaxionSpace(boolean easia, double x, double y, double[] dst, int off) {
         double t = x;
         x = -y;
         y = t;
@@ -78,12 +309,8 @@ public class BTEDymaxionProjection extends ConformalDynmaxionProjection {
 
         y += 0.75 * ARC * MathUtils.ROOT3;
 
-        //check to make sure still in right part
-        if (easia != this.isEurasianPart(x, y)) {
-            throw OutOfProjectionBoundsException.get();
-        }
-
-        return super.toGeo(x, y);
+        dst[off] = x;
+        dst[off + 1] = y;
     }
 
     protected boolean isEurasianPart(double x, double y) {
@@ -125,6 +352,6 @@ public class BTEDymaxionProjection extends ConformalDynmaxionProjection {
 
     @Override
     public String toString() {
-        return "BuildTheEarth Conformal Dymaxion";
+        return "BuildTheEarth Conformal Dymaxion" + this.describeField();
     }
 }
\ No newline at end of file
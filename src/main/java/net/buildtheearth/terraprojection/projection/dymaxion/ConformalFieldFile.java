@@ -0,0 +1,225 @@
+package net.buildtheearth.terraprojection.projection.dymaxion;
+
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import net.daporkchop.lib.common.function.io.IOSupplier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the raw files {@link ConformalDynmaxionProjection}'s precomputed vector field is memory-mapped from.
+ * <p>
+ * Mapped files are backed by the operating system's page cache, so every JVM of a user on a host using the same file shares a single copy of the field,
+ * and loading it doesn't require decoding anything. Files must never be modified in place while they may be mapped, as this would crash the processes
+ * mapping them: they are replaced with new files instead.
+ * <p>
+ * Files are only mapped if they were written by the current user: both they and the directory they are in must be owned by the current user, and
+ * not be writable by anyone else. The values are also checked against a checksum, so that a corrupted file is replaced rather than used.
+ * <p>
+ * All values are little-endian. A file starts with a {@value #HEADER_SIZE} byte header:
+ * <ul>
+ *     <li>the magic number {@code "TPCF"}</li>
+ *     <li>the format version, as an int</li>
+ *     <li>the side length of the field's lattice, as an int</li>
+ *     <li>the number of values per triangle of the lattice, as an int</li>
+ *     <li>a hash of the data the field was computed from, as a long, used to detect stale files</li>
+ *     <li>the number of values in the file, as a long</li>
+ *     <li>the CRC32 of the values, as a long</li>
+ * </ul>
+ * followed by the values themselves, as doubles.
+ */
+@UtilityClass
+public class ConformalFieldFile {
+    public final int MAGIC = 'T' | 'P' << 8 | 'C' << 16 | 'F' << 24;
+    public final int VERSION = 2;
+    public final int HEADER_SIZE = 40;
+
+    /**
+     * The source hash of fields computed by {@link ConformalFieldGenerator} rather than from the bundled data
+     */
+    public final long GENERATED = 0L;
+
+    /**
+     * Creates {@link ConformalDynmaxionProjection}'s field file ahead of time, e.g. when building a server image, at the path given as the only argument.
+     * Point the system property {@code terraprojection.conformalField} to it to use it. The file is only used by JVMs running as the user who created it.
+     */
+    public void main(String... args) throws IOException {
+        Preconditions.checkArgument(args.length == 1, "Usage: ConformalFieldFile <path>");
+        ConformalDynmaxionProjection.mapField(Paths.get(args[0]));
+    }
+
+    /**
+     * Maps a field file, creating it first if it doesn't exist or doesn't match the expected field.
+     * <p>
+     * New files are written next to their final location and atomically moved into place, so concurrent processes never map a partially written file.
+     *
+     * @param path       - the file to map
+     * @param sideLength - the side length of the field's lattice
+     * @param stride     - the number of values per triangle of the lattice
+     * @param sourceHash - a hash of the data the field is computed from
+     * @param generator  - computes the values to write if the file has to be created
+     * @return a read-only view of the values in the file
+     * @throws IOException if the file can't be read or written
+     */
+    public DoubleBuffer mapOrCreate(@NonNull Path path, int sideLength, int stride, long sourceHash, @NonNull IOSupplier<double[]> generator) throws IOException {
+        DoubleBuffer values = map(path, sideLength, stride, sourceHash);
+        if (values == null) {
+            write(path, sideLength, stride, sourceHash, generator.getThrowing());
+            values = map(path, sideLength, stride, sourceHash);
+            if (values == null) {
+                throw new IOException("Field file " + path + " was replaced by an incompatible one");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Maps a field file.
+     *
+     * @return a read-only view of the values in the file, or {@code null} if it doesn't exist or doesn't match the expected field
+     * @throws IOException if the file can't be read, or may have been written by another user
+     */
+    public DoubleBuffer map(@NonNull Path path, int sideLength, int stride, long sourceHash) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            checkOwner(path);
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            //the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != sideLength || buffer.getInt(12) != stride
+            || buffer.getLong(16) != sourceHash || buffer.getLong(24) != (buffer.capacity() - HEADER_SIZE) / Double.BYTES
+            || (buffer.capacity() - HEADER_SIZE) % Double.BYTES != 0) {
+            return null;
+        }
+
+        buffer.position(HEADER_SIZE);
+        ByteBuffer values = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getLong(32) != checksum(values.duplicate())) {
+            return null;
+        }
+        return values.asDoubleBuffer();
+    }
+
+    /**
+     * Checks that only the current user can have written a file, i.e. that it and the directory it is in are owned by the current user and not writable
+     * by anyone else.
+     *
+     * @throws IOException if the file may have been written by another user
+     */
+    private void checkOwner(Path path) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) { //not a POSIX file system
+            return;
+        }
+
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        PosixFileAttributes file = view.readAttributes();
+        PosixFileAttributes directory = Files.readAttributes(path.toAbsolutePath().getParent(), PosixFileAttributes.class);
+        if (!file.owner().equals(user) || isSharedWritable(file) || !directory.owner().equals(user) || isSharedWritable(directory)) {
+            throw new IOException("Field file " + path + " may have been written by another user than " + user.getName());
+        }
+    }
+
+    private boolean isSharedWritable(PosixFileAttributes attributes) {
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        return permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    /**
+     * @return the CRC32 of a buffer's remaining bytes
+     */
+    private long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the side length of the lattice of the field in a field file.
+     * <p>
+     * The format version isn't checked, so that fields written by other versions are recognized, even though they can't be mapped.
+     *
+     * @return the side length, or {@code -1} if the file doesn't exist or doesn't have the expected stride and source hash
+     * @throws IOException if the file can't be read
+     */
+    public int sideLength(@NonNull Path path, int stride, long sourceHash) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                //the header may be read in several parts
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(12) != stride
+            || header.getLong(16) != sourceHash) {
+            return -1;
+        }
+        return header.getInt(8);
+    }
+
+    /**
+     * Writes a field file, replacing it if it already exists.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public void write(@NonNull Path path, int sideLength, int stride, long sourceHash, @NonNull double[] values) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) { //not a POSIX file system
+            Files.createDirectories(directory);
+        }
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + values.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.position(HEADER_SIZE);
+                buffer.asDoubleBuffer().put(values);
+                long checksum = checksum(buffer.duplicate());
+                buffer.position(0);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(sideLength).putInt(stride).putLong(sourceHash).putLong(values.length).putLong(checksum);
+                buffer.position(0);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package net.buildtheearth.terraprojection.projection.dymaxion;
+
+import com.google.common.base.Preconditions;
+import lombok.experimental.UtilityClass;
+import net.buildtheearth.terraprojection.util.MathUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes {@link ConformalDynmaxionProjection}'s vector field from scratch, at any resolution.
+ * <p>
+ * The vector field moves the points of the reference triangle so that, once projected onto the sphere by {@link DymaxionProjection}, the reference
+ * triangle is mapped conformally onto a face of the icosahedron, with its vertices mapped onto the face's vertices. Both the equilateral triangle and
+ * the faces of the icosahedron are split into 6 smaller triangles by their medians, and each of them has a function mapping every copy of its smaller
+ * triangle conformally onto a half-plane, with the vertices, centers and edge midpoints mapped onto ∞, 0 and 1:
+ * <ul>
+ *     <li>{@code 4℘(z)³}, where ℘ is Weierstrass' elliptic function of the equianharmonic lattice ({@code g2 = 0, g3 = 1}), in the plane</li>
+ *     <li>Klein's icosahedral invariant {@code H(w)³ / 1728f(w)⁵}, where w is a stereographic coordinate, on the sphere</li>
+ * </ul>
+ * The conformal map is therefore found by solving {@code H(w)³ / 1728f(w)⁵ = 4℘(z)³} for w using Newton's method. Points are first moved next to
+ * the same vertex of the triangle using its symmetries, where both sides are given by quickly converging series in {@code z⁶} and {@code w⁵}. The
+ * equation is rearranged near the vertices, centers and edge midpoints, so that no precision is lost where either side is singular.
+ * <p>
+ * The result is accurate up to rounding errors at every vertex of the lattice. The bundled field was computed with an iterative solver, and is within
+ * a few meters of it.
+ */
+@UtilityClass
+public class ConformalFieldGenerator {
+    /**
+     * The real half-period of ℘ for {@code g2 = 0} and {@code g3 = 1}, {@code Γ(1/3)³ / 4π}
+     */
+    private final double HALF_PERIOD = 1.5299540370571926d;
+
+    /**
+     * Coefficients of ℘'s series, as {@code ℘(z) = (1 + Σ WEIERSTRASS[j] z^(6j)) / z²}
+     */
+    private final double[] WEIERSTRASS = weierstrassCoefficients(24);
+
+    /**
+     * Rotation matrix from the coordinates Klein's invariant is defined in to {@link DymaxionProjection}'s reference face, stored in row-major order
+     */
+    private final double[] KLEIN_TO_REFERENCE = kleinToReference();
+
+    /**
+     * Shared by all threads, only to use its triangle transforms
+     */
+    private final DymaxionProjection DYMAXION = new DymaxionProjection();
+
+    /**
+     * Computes {@link ConformalDynmaxionProjection}'s vector field and writes it to a field file, which can be used by pointing the system property
+     * {@code terraprojection.conformalField} to it.
+     * <p>
+     * Arguments are the path of the file and the side length of the field's lattice.
+     */
+    public void main(String... args) throws IOException {
+        Preconditions.checkArgument(args.length == 2, "Usage: ConformalFieldGenerator <path> <side length>");
+        int sideLength = Integer.parseInt(args[1]);
+
+        long start = System.nanoTime();
+        double[][][] vertices = computeVertices(sideLength);
+        System.out.printf("Computed %d vertices in %.1fs%n", (sideLength + 1) * (sideLength + 2) / 2, (System.nanoTime() - start) / 1.0e9d);
+
+        ConformalFieldFile.write(Paths.get(args[0]), sideLength, ConformalDynmaxionProjection.DoubleVectorField.STRIDE, ConformalFieldFile.GENERATED,
+                ConformalDynmaxionProjection.DoubleVectorField.computeTriangles(vertices));
+    }
+
+    /**
+     * Computes the vector field's values at the vertices of a lattice, in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param sideLength - the side length of the lattice
+     * @return {vx, vy}, both indexed as {@code [u][v]} for {@code u + v <= sideLength}
+     */
+    public double[][][] computeVertices(int sideLength) {
+        Preconditions.checkArgument(sideLength > 0 && sideLength <= 16384, "sideLength must be between 1 and 16384 (given: %s)", sideLength);
+        double[][] vx = new double[sideLength + 1][];
+        double[][] vy = new double[sideLength + 1][];
+        ForkJoinPool.commonPool().invoke(new RowTask(sideLength, vx, vy, 0, sideLength + 1));
+        return new double[][][]{ vx, vy };
+    }
+
+    /**
+     * Computes the vector field at a point of the reference triangle, whose vertices are (0, 0), (1, 0) and (0.5, √3/2).
+     *
+     * @param dst - array to store the {vx, vy} result in
+     * @param off - index to store the result at
+     */
+    public void computeVector(double x, double y, double[] dst, int off) {
+        //rotate the point around the triangle's center so that (0, 0) is the closest vertex
+        double cx = 0.5d;
+        double cy = MathUtils.ROOT3 / 6.0d;
+        double sin = 0.0d;
+        if ((x - 1.0d) * (x - 1.0d) + y * y < x * x + y * y) {
+            sin = -MathUtils.ROOT3 / 2.0d;
+        }
+        if ((x - 0.5d) * (x - 0.5d) + (y - MathUtils.ROOT3 / 2.0d) * (y - MathUtils.ROOT3 / 2.0d) < Math.min(x * x + y * y, (x - 1.0d) * (x - 1.0d) + y * y)) {
+            sin = MathUtils.ROOT3 / 2.0d;
+        }
+        double cos = sin == 0.0d ? 1.0d : -0.5d;
+        double rx = cx + cos * (x - cx) - sin * (y - cy);
+        double ry = cy + sin * (x - cx) + cos * (y - cy);
+
+        double[] sphere = solve(rx, ry);
+        DYMAXION.triangleTransform(sphere[0], sphere[1], sphere[2], dst, off);
+
+        //rotate the result back, the field's values are centered on the triangle's center
+        double vx = dst[off];
+        double vy = dst[off + 1];
+        dst[off] = cos * vx + sin * vy;
+        dst[off + 1] = -sin * vx + cos * vy;
+    }
+
+    /**
+     * Maps a point of the reference triangle which is closer to (0, 0) than to its other vertices conformally onto the sphere.
+     *
+     * @return the point's position vector, relative to {@link DymaxionProjection}'s reference face
+     */
+    private double[] solve(double x, double y) {
+        Complex z = new Complex(x, y).scale(2.0d * HALF_PERIOD);
+        Complex w;
+        if (z.abs() == 0.0d) {
+            w = Complex.ZERO;
+        } else {
+            Complex guess = initialGuess(x, y);
+            Complex s = newton(z.pow(6), guess.pow(5));
+            w = s.root5();
+            //pick the fifth root in the face, next to the initial guess
+            Complex rotation = Complex.polar(1.0d, 0.4d * Math.PI);
+            Complex best = w;
+            for (int i = 1; i < 5; i++) {
+                w = w.mul(rotation);
+                if (w.sub(guess).abs() < best.sub(guess).abs()) {
+                    best = w;
+                }
+            }
+            w = best;
+            if (w.sub(guess).abs() > 0.1d) {
+                throw new IllegalStateException("Failed to converge at " + x + ", " + y);
+            }
+        }
+
+        double[] klein = fromStereographic(w);
+        double[] m = KLEIN_TO_REFERENCE;
+        return new double[]{
+                m[0] * klein[0] + m[1] * klein[1] + m[2] * klein[2],
+                m[3] * klein[0] + m[4] * klein[1] + m[5] * klein[2],
+                m[6] * klein[0] + m[7] * klein[1] + m[8] * klein[2] };
+    }
+
+    /**
+     * @return the stereographic coordinate of the point {@link DymaxionProjection} maps the given point of the reference triangle to
+     */
+    private Complex initialGuess(double x, double y) {
+        double[] position = new double[3];
+        position[2] = DYMAXION.inverseTriangleTransformNewton((x - 0.5d) * DymaxionProjection.ARC, (y - MathUtils.ROOT3 / 6.0d) * DymaxionProjection.ARC, position, 0);
+
+        //the rotation's inverse is its transpose
+        double[] m = KLEIN_TO_REFERENCE;
+        double kx = m[0] * position[0] + m[3] * position[1] + m[6] * position[2];
+        double ky = m[1] * position[0] + m[4] * position[1] + m[7] * position[2];
+        double kz = m[2] * position[0] + m[5] * position[1] + m[8] * position[2];
+        return new Complex(kx / (1.0d + kz), ky / (1.0d + kz));
+    }
+
+    /**
+     * Solves {@code H(w)³ / 1728f(w)⁵ = 4℘(z)³} for {@code s = w⁵}, given {@code x = z⁶}.
+     * <p>
+     * In terms of x and s, {@code 4℘³ = 4q(x)³ / x} and {@code 4℘³ - 1 = ℘'² = r(x)² / x}, while {@code H³ / 1728f⁵ = h(s)³ / 1728sp(s)⁵} and
+     * {@code H³ / 1728f⁵ - 1 = -t(s)² / 1728sp(s)⁵}. The form of the equation whose terms are the smallest is used, as their absolute rounding errors
+     * are the smallest too.
+     */
+    private Complex newton(Complex x, Complex s) {
+        Complex q = Complex.ONE;
+        Complex r = new Complex(-2.0d, 0.0d);
+        Complex power = Complex.ONE;
+        for (int j = 1; j < WEIERSTRASS.length; j++) {
+            power = power.mul(x);
+            q = q.add(power.scale(WEIERSTRASS[j]));
+            r = r.add(power.scale(WEIERSTRASS[j] * (6 * j - 2)));
+        }
+
+        Complex j = q.mul(q).mul(q).scale(4.0d).div(x);
+        int form = j.abs() >= 2.0d ? 0 : j.sub(Complex.ONE).abs() < 0.5d ? 1 : 2;
+        Complex expected = form == 0 ? x.div(q.mul(q).mul(q).scale(4.0d))
+                : form == 1 ? r.mul(r).div(x)
+                : j;
+
+        for (int i = 0; i < 200; i++) {
+            //p, h and t are Klein's forms f, H and T, as polynomials in s
+            Complex[] p = polynomial(s, -1.0d, 11.0d, 1.0d);
+            Complex[] h = polynomial(s, -1.0d, -228.0d, -494.0d, 228.0d, -1.0d);
+            Complex[] t = polynomial(s, 1.0d, -522.0d, -10005.0d, 0.0d, -10005.0d, 522.0d, 1.0d);
+
+            //1728sp⁵ and its derivative
+            Complex p4 = p[0].mul(p[0]).mul(p[0]).mul(p[0]);
+            Complex f = s.mul(p4).mul(p[0]).scale(1728.0d);
+            Complex df = p4.mul(p[0]).add(s.mul(p4).mul(p[1]).scale(5.0d)).scale(1728.0d);
+
+            Complex numerator;
+            Complex dNumerator;
+            Complex denominator;
+            Complex dDenominator;
+            if (form == 0) { //1728sp⁵ / h³
+                numerator = f;
+                dNumerator = df;
+                denominator = h[0].mul(h[0]).mul(h[0]);
+                dDenominator = h[0].mul(h[0]).mul(h[1]).scale(3.0d);
+            } else if (form == 1) { //-t² / 1728sp⁵
+                numerator = t[0].mul(t[0]).neg();
+                dNumerator = t[0].mul(t[1]).scale(-2.0d);
+                denominator = f;
+                dDenominator = df;
+            } else { //h³ / 1728sp⁵
+                numerator = h[0].mul(h[0]).mul(h[0]);
+                dNumerator = h[0].mul(h[0]).mul(h[1]).scale(3.0d);
+                denominator = f;
+                dDenominator = df;
+            }
+
+            Complex value = numerator.div(denominator).sub(expected);
+            Complex derivative = dNumerator.mul(denominator).sub(numerator.mul(dDenominator)).div(denominator.mul(denominator));
+            if (value.abs() == 0.0d || derivative.abs() == 0.0d) {
+                break;
+            }
+
+            Complex step = value.div(derivative);
+            s = s.sub(step);
+            if (step.abs() <= 1.0e-16d * s.abs()) {
+                break;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Evaluates a polynomial with real coefficients and its derivative.
+     *
+     * @param coefficients - the coefficients, starting with the constant term
+     * @return {value, derivative}
+     */
+    private Complex[] polynomial(Complex s, double... coefficients) {
+        Complex value = Complex.ZERO;
+        Complex derivative = Complex.ZERO;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            derivative = derivative.mul(s).add(value);
+            value = value.mul(s).add(new Complex(coefficients[i], 0.0d));
+        }
+        return new Complex[]{ value, derivative };
+    }
+
+    /**
+     * @return the coefficients of ℘'s Laurent series in {@code z⁶}, for {@code g2 = 0} and {@code g3 = 1}
+     */
+    private double[] weierstrassCoefficients(int terms) {
+        //℘(z) = 1 / z² + Σ c[k] z^(2k - 2), with c[2] = g2 / 20, c[3] = g3 / 28 and c[k] = 3 / ((2k + 1)(k - 3)) Σ c[m] c[k - m] for m in [2, k - 2]
+        double[] c = new double[3 * terms];
+        c[3] = 1.0d / 28.0d;
+        for (int k = 4; k < c.length; k++) {
+            double sum = 0.0d;
+            for (int m = 2; m <= k - 2; m++) {
+                sum += c[m] * c[k - m];
+            }
+            c[k] = 3.0d * sum / ((2 * k + 1) * (k - 3));
+        }
+
+        //only every third coefficient is non-zero when g2 = 0
+        double[] coefficients = new double[terms];
+        for (int j = 1; j < terms; j++) {
+            coefficients[j] = c[3 * j];
+        }
+        return coefficients;
+    }
+
+    /**
+     * @return the rotation mapping the face of the icosahedron whose vertices have the stereographic coordinates 0, 2cos(2π/5) and 2cos(2π/5)e^(2πi/5)
+     * onto the reference face, with the vertices mapped onto the reference triangle's (0, 0), (1, 0) and (0.5, √3/2)
+     */
+    private double[] kleinToReference() {
+        double edge = 2.0d * Math.cos(0.4d * Math.PI);
+        double[][] klein = {
+                fromStereographic(Complex.ZERO),
+                fromStereographic(new Complex(edge, 0.0d)),
+                fromStereographic(Complex.polar(edge, 0.4d * Math.PI))
+        };
+
+        //the vertices of the reference face are along the directions of the vertices of the triangle, at the face's distance from the center
+        double radius = Math.sqrt(1.0d - DymaxionProjection.Z * DymaxionProjection.Z) / (DymaxionProjection.ARC / MathUtils.ROOT3);
+        double[][] reference = {
+                { -0.5d * DymaxionProjection.ARC * radius, -MathUtils.ROOT3 / 6.0d * DymaxionProjection.ARC * radius, DymaxionProjection.Z },
+                { 0.5d * DymaxionProjection.ARC * radius, -MathUtils.ROOT3 / 6.0d * DymaxionProjection.ARC * radius, DymaxionProjection.Z },
+                { 0.0d, MathUtils.ROOT3 / 3.0d * DymaxionProjection.ARC * radius, DymaxionProjection.Z }
+        };
+
+        //rotation = reference * klein⁻¹, where the columns of both matrices are the vertices
+        double[] inverse = invert(klein);
+        double[] rotation = new double[9];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    rotation[i * 3 + j] += reference[k][i] * inverse[k * 3 + j];
+                }
+            }
+        }
+        return rotation;
+    }
+
+    /**
+     * @param columns - the columns of a 3x3 matrix
+     * @return the matrix's inverse, in row-major order
+     */
+    private double[] invert(double[][] columns) {
+        double[] a = columns[0];
+        double[] b = columns[1];
+        double[] c = columns[2];
+        double[] bc = cross(b, c);
+        double[] ca = cross(c, a);
+        double[] ab = cross(a, b);
+        double determinant = MathUtils.dot(a, bc);
+        return new double[]{
+                bc[0] / determinant, bc[1] / determinant, bc[2] / determinant,
+                ca[0] / determinant, ca[1] / determinant, ca[2] / determinant,
+                ab[0] / determinant, ab[1] / determinant, ab[2] / determinant };
+    }
+
+    private double[] cross(double[] a, double[] b) {
+        return new double[]{ a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0] };
+    }
+
+    /**
+     * @return the point of the unit sphere with the given stereographic coordinate, with 0 at (0, 0, 1)
+     */
+    private double[] fromStereographic(Complex w) {
+        double norm = w.re * w.re + w.im * w.im;
+        return new double[]{ 2.0d * w.re / (1.0d + norm), 2.0d * w.im / (1.0d + norm), (1.0d - norm) / (1.0d + norm) };
+    }
+
+    /**
+     * Computes the vector field at the vertices of a range of rows of the lattice.
+     */
+    private static final class RowTask extends RecursiveAction {
+        private final int sideLength;
+        private final double[][] vx;
+        private final double[][] vy;
+        private final int start;
+        private final int end;
+
+        RowTask(int sideLength, double[][] vx, double[][] vy, int start, int end) {
+            this.sideLength = sideLength;
+            this.vx = vx;
+            this.vy = vy;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > 1) {
+                int split = (this.start + this.end) >>> 1;
+                invokeAll(new RowTask(this.sideLength, this.vx, this.vy, this.start, split),
+                        new RowTask(this.sideLength, this.vx, this.vy, split, this.end));
+                return;
+            }
+
+            int u = this.start;
+            double[] rowX = new double[this.sideLength + 1 - u];
+            double[] rowY = new double[this.sideLength + 1 - u];
+            double[] vector = new double[2];
+            for (int v = 0; v <= this.sideLength - u; v++) {
+                computeVector((u + 0.5d * v) / this.sideLength, 0.5d * MathUtils.ROOT3 * v / this.sideLength, vector, 0);
+                rowX[v] = vector[0];
+                rowY[v] = vector[1];
+            }
+            this.vx[u] = rowX;
+            this.vy[u] = rowY;
+        }
+    }
+
+    /**
+     * An immutable complex number.
+     */
+    private static final class Complex {
+        static final Complex ZERO = new Complex(0.0d, 0.0d);
+        static final Complex ONE = new Complex(1.0d, 0.0d);
+
+        final double re;
+        final double im;
+
+        Complex(double re, double im) {
+            this.re = re;
+            this.im = im;
+        }
+
+        static Complex polar(double abs, double arg) {
+            return new Complex(abs * Math.cos(arg), abs * Math.sin(arg));
+        }
+
+        double abs() {
+            return Math.hypot(this.re, this.im);
+        }
+
+        Complex add(Complex other) {
+            return new Complex(this.re + other.re, this.im + other.im);
+        }
+
+        Complex sub(Complex other) {
+            return new Complex(this.re - other.re, this.im - other.im);
+        }
+
+        Complex neg() {
+            return new Complex(-this.re, -this.im);
+        }
+
+        Complex scale(double factor) {
+            return new Complex(this.re * factor, this.im * factor);
+        }
+
+        Complex mul(Complex other) {
+            return new Complex(this.re * other.re - this.im * other.im, this.re * other.im + this.im * other.re);
+        }
+
+        Complex div(Complex other) {
+            double norm = other.re * other.re + other.im * other.im;
+            return new Complex((this.re * other.re + this.im * other.im) / norm, (this.im * other.re - this.re * other.im) / norm);
+        }
+
+        Complex pow(int exponent) {
+            Complex result = ONE;
+            for (int i = 0; i < exponent; i++) {
+                result = result.mul(this);
+            }
+            return result;
+        }
+
+        /**
+         * @return the fifth root of this number whose argument is in [0, 2π/5)
+         */
+        Complex root5() {
+            double arg = Math.atan2(this.im, this.re);
+            if (arg < 0.0d) {
+                arg += 2.0d * Math.PI;
+            }
+            return polar(Math.pow(this.abs(), 0.2d), arg / 5.0d);
+        }
+    }
+}
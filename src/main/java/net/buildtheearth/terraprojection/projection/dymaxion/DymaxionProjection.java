@@ -1,15 +1,32 @@
 package net.buildtheearth.terraprojection.projection.dymaxion;
 
+import com.google.common.base.Preconditions;
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
 import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.projection.SolverPrecision;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+import net.buildtheearth.terraprojection.util.FastMath;
+import net.buildtheearth.terraprojection.util.IterationHistogram;
+import net.buildtheearth.terraprojection.util.JsonUtils;
 import net.buildtheearth.terraprojection.util.MathUtils;
 
+import java.lang.reflect.Type;
+
 /**
  * Implementation of the Dynmaxion projection.
  * Also known as Airocean or Fuller projection.
+ * <p>
+ * The inverse projection uses Newton's method, which stops early once it is within the tolerance given by {@code "precision"} (see {@link SolverPrecision}).
+ * <p>
+ * The trigonometric functions may optionally be approximated with {@link FastMath} ({@code "fastMath": true}), which makes projecting points 10 to 25% faster,
+ * at the cost of an error of at most {@value #FAST_MATH_MAX_ERROR} meters.
  *
  * @see <a href="https://en.wikipedia.org/wiki/Dymaxion_map">Wikipedia's article on the Dynmaxion projection</a>
  */
+@JsonAdapter(DymaxionProjection.Deserializer.class)
 public class DymaxionProjection implements GeographicProjection {
 
     protected static final double ARC = 2 * Math.asin(Math.sqrt(5 - Math.sqrt(5)) / Math.sqrt(10));
@@ -20,9 +37,25 @@ public class DymaxionProjection implements GeographicProjection {
     protected static final double R = -3 * EL6 / DVE;
 
     /**
-     * Number of iterations for Newton's method
+     * Maximum distance between the positions computed with and without {@link FastMath}, in meters on the ground, for this projection and its subclasses.
+     * The largest distance measured over a few million random points is about 10 nanometers.
+     */
+    public static final double FAST_MATH_MAX_ERROR = 0.01d;
+
+    /**
+     * Maximum number of iterations for Newton's method
      */
-    private static final int NEWTON = 5;
+    protected static final int NEWTON = 5;
+
+    /**
+     * Side length of the tiles grids are split into when looking for the faces they are on
+     */
+    protected static final int GRID_TILE = 16;
+
+    /**
+     * Number of cells along each side of each face of the cube map used by {@link #findTriangle(double, double, double)}
+     */
+    private static final int CUBE_MAP_SIZE = 64;
 
     /**
      * This contains the vertices of the icosahedron,
@@ -76,7 +109,11 @@ public class DymaxionProjection implements GeographicProjection {
             { 3, 7, 8 } //child of 15
     };
 
-    protected static final double[][] CENTER_MAP = {
+    /**
+     * The position of the center of each face on the map, in units of half a side horizontally and of a sixth of a triangle's height vertically.
+     * These are scaled into {@link #CENTER_MAP_X} and {@link #CENTER_MAP_Y} when the class is loaded.
+     */
+    private static final double[][] CENTER_MAP = {
             { -3, 7 },
             { -2, 5 },
             { -1, 7 },
@@ -112,22 +149,41 @@ public class DymaxionProjection implements GeographicProjection {
     };
 
     /**
-     * This contains the Cartesian coordinates the centroid
+     * The x coordinate of the center of each face on the map.
+     */
+    protected static final double[] CENTER_MAP_X = new double[22];
+
+    /**
+     * The y coordinate of the center of each face on the map.
+     */
+    protected static final double[] CENTER_MAP_Y = new double[22];
+
+    /**
+     * These contain the Cartesian coordinates of the centroid
      * of each face of the icosahedron.
      */
-    protected static final double[][] CENTROIDS = new double[22][3];
+    protected static final double[] CENTROIDS_X = new double[22];
+    protected static final double[] CENTROIDS_Y = new double[22];
+    protected static final double[] CENTROIDS_Z = new double[22];
 
     /**
      * Rotation matrices to move the triangles to the reference coordinates from the original positions.
-     * Indexed by the face's indices.
+     * The 3x3 matrix of each face is stored in row-major order, starting at 9 times the face's index.
      */
-    protected static final double[][][] ROTATION_MATRICES = new double[22][3][3];
+    protected static final double[] ROTATION_MATRICES = new double[22 * 9];
 
     /**
      * Rotation matrices to move the triangles from the reference coordinates to their original positions.
-     * Indexed by the face's indices.
+     * The 3x3 matrix of each face is stored in row-major order, starting at 9 times the face's index.
+     */
+    protected static final double[] INVERSE_ROTATION_MATRICES = new double[22 * 9];
+
+    /**
+     * Faces of the icosahedron which may contain the points in each cell of a cube map of the unit sphere,
+     * as computed by {@link #cubeMapCell(double, double, double)}.
+     * The lowest 3 bits are the number of faces, followed by the faces themselves in ascending order, using 5 bits each.
      */
-    protected static final double[][][] INVERSE_ROTATION_MATRICES = new double[22][3][3];
+    private static final int[] CUBE_MAP_FACES = new int[6 * CUBE_MAP_SIZE * CUBE_MAP_SIZE];
 
     protected static final int[] FACE_ON_GRID = {
             -1, -1, 0, 1, 2, -1, -1, 3, -1, 4, -1,
@@ -135,11 +191,53 @@ public class DymaxionProjection implements GeographicProjection {
             20, 19, 15, 21, 16, -1, 17, 18, -1, -1, -1,
     };
 
+    @Getter
+    protected final SolverPrecision precision;
+    @Getter
+    protected final boolean fastMath;
+
+    /**
+     * The number of iterations {@link #inverseTriangleTransformNewton(double, double, double[], int)} needed for each point, only recorded once it is
+     * enabled, e.g. by {@link net.buildtheearth.terraprojection.projection.transform.InstrumentedProjectionTransform}
+     */
+    @Getter
+    protected transient final IterationHistogram toGeoIterations = new IterationHistogram(NEWTON);
+
+    public DymaxionProjection() {
+        this(null);
+    }
+
+    /**
+     * @param precision - how precisely to invert the projection. Defaults to {@link SolverPrecision#EXACT}
+     */
+    public DymaxionProjection(SolverPrecision precision) {
+        this(precision, null);
+    }
+
+    /**
+     * @param precision - how precisely to invert the projection. Defaults to {@link SolverPrecision#EXACT}
+     * @param fastMath  - whether or not to approximate the trigonometric functions with {@link FastMath}. Defaults to {@code false}
+     */
+    public DymaxionProjection(SolverPrecision precision, Boolean fastMath) {
+        this.precision = precision != null ? precision : SolverPrecision.EXACT;
+        this.fastMath = fastMath != null && fastMath;
+    }
+
+    static class Deserializer implements JsonDeserializer<DymaxionProjection> {
+        public DymaxionProjection deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new DymaxionProjection(
+                    context.deserialize(jsonObject.get("precision"), SolverPrecision.class),
+                    JsonUtils.getNullableBoolean(jsonObject, "fastMath")
+            );
+        }
+    }
+
     static {
 
         for (int i = 0; i < 22; i++) {
-            CENTER_MAP[i][0] *= 0.5 * ARC;
-            CENTER_MAP[i][1] *= ARC * MathUtils.ROOT3 / 12;
+            CENTER_MAP_X[i] = CENTER_MAP[i][0] * (0.5 * ARC);
+            CENTER_MAP_Y[i] = CENTER_MAP[i][1] * (ARC * MathUtils.ROOT3 / 12);
         }
 
         // Will contain the list of vertices in Cartesian coordinates
@@ -165,9 +263,11 @@ public class DymaxionProjection implements GeographicProjection {
             double ysum = vec1[1] + vec2[1] + vec3[1];
             double zsum = vec1[2] + vec2[2] + vec3[2];
             double mag = Math.sqrt(xsum * xsum + ysum * ysum + zsum * zsum);
-            CENTROIDS[i] = new double[]{ xsum / mag, ysum / mag, zsum / mag };
+            CENTROIDS_X[i] = xsum / mag;
+            CENTROIDS_Y[i] = ysum / mag;
+            CENTROIDS_Z[i] = zsum / mag;
 
-            double[] centroidSpherical = MathUtils.cartesian2Spherical(CENTROIDS[i]);
+            double[] centroidSpherical = MathUtils.cartesian2Spherical(new double[]{ CENTROIDS_X[i], CENTROIDS_Y[i], CENTROIDS_Z[i] });
             double centroidLambda = centroidSpherical[0];
             double centroidPhi = centroidSpherical[1];
 
@@ -175,10 +275,117 @@ public class DymaxionProjection implements GeographicProjection {
             double[] v = { vertex[0] - centroidLambda, vertex[1] };
             v = yRot(v, -centroidPhi);
 
-            ROTATION_MATRICES[i] = MathUtils.produceZYZRotationMatrix(-centroidLambda, -centroidPhi, (Math.PI / 2) - v[0]);
-            INVERSE_ROTATION_MATRICES[i] = MathUtils.produceZYZRotationMatrix(v[0] - (Math.PI / 2), centroidPhi, centroidLambda);
+            double[][] rotation = MathUtils.produceZYZRotationMatrix(-centroidLambda, -centroidPhi, (Math.PI / 2) - v[0]);
+            double[][] inverseRotation = MathUtils.produceZYZRotationMatrix(v[0] - (Math.PI / 2), centroidPhi, centroidLambda);
+            for (int row = 0; row < 3; row++) {
+                System.arraycopy(rotation[row], 0, ROTATION_MATRICES, 9 * i + 3 * row, 3);
+                System.arraycopy(inverseRotation[row], 0, INVERSE_ROTATION_MATRICES, 9 * i + 3 * row, 3);
+            }
 
         }
+
+        for (int side = 0; side < 6; side++) {
+            for (int j = 0; j < CUBE_MAP_SIZE; j++) {
+                for (int i = 0; i < CUBE_MAP_SIZE; i++) {
+                    CUBE_MAP_FACES[(side * CUBE_MAP_SIZE + j) * CUBE_MAP_SIZE + i] = findCubeMapFaces(side, i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the faces whose closest points can be in a cell of the cube map.
+     * <p>
+     * A point is on the face with the closest centroid, i.e. the greatest dot product with the point. The difference between the dot products of
+     * two faces is a linear function of a vector pointing to the cube map's cell, so a face can only be closer than the face closest to the cell's
+     * center somewhere in the cell if it is at one of its corners.
+     */
+    private static int findCubeMapFaces(int side, int i, int j) {
+        double[][] corners = new double[5][];
+        for (int corner = 0; corner < 5; corner++) {
+            double u = corner == 4 ? i + 0.5d : i + (corner & 1);
+            double v = corner == 4 ? j + 0.5d : j + (corner >>> 1);
+            corners[corner] = cubeMapVector(side, u * 2.0d / CUBE_MAP_SIZE - 1.0d, v * 2.0d / CUBE_MAP_SIZE - 1.0d);
+        }
+
+        double[][] centroids = new double[20][];
+        for (int face = 0; face < 20; face++) {
+            centroids[face] = new double[]{ CENTROIDS_X[face], CENTROIDS_Y[face], CENTROIDS_Z[face] };
+        }
+
+        double[] center = corners[4];
+        int closest = 0;
+        for (int face = 1; face < 20; face++) {
+            if (MathUtils.dot(centroids[face], center) > MathUtils.dot(centroids[closest], center)) {
+                closest = face;
+            }
+        }
+
+        int faces = 0;
+        int count = 0;
+        for (int face = 0; face < 20; face++) {
+            for (int corner = 0; corner < 4; corner++) {
+                //leave some margin for rounding errors, both here and in cubeMapCell
+                if (MathUtils.dot(centroids[face], corners[corner]) - MathUtils.dot(centroids[closest], corners[corner]) > -1.0e-9d) {
+                    Preconditions.checkState(count < 5, "too many faces in cube map cell");
+                    faces |= face << (3 + 5 * count++);
+                    break;
+                }
+            }
+        }
+        return faces | count;
+    }
+
+    private static double[] cubeMapVector(int side, double u, double v) {
+        double axis = (side & 1) == 0 ? 1.0d : -1.0d;
+        double[] vector;
+        switch (side >>> 1) {
+            case 0:
+                vector = new double[]{ axis, u, v };
+                break;
+            case 1:
+                vector = new double[]{ u, axis, v };
+                break;
+            default:
+                vector = new double[]{ u, v, axis };
+        }
+        double mag = Math.sqrt(vector[0] * vector[0] + vector[1] * vector[1] + vector[2] * vector[2]);
+        vector[0] /= mag;
+        vector[1] /= mag;
+        vector[2] /= mag;
+        return vector;
+    }
+
+    /**
+     * Finds the cell of the cube map a vector points to, by projecting it onto the face of the cube corresponding to its largest coordinate.
+     *
+     * @return the index of the cell in {@link #CUBE_MAP_FACES}
+     */
+    private static int cubeMapCell(double x, double y, double z) {
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        double az = Math.abs(z);
+
+        int side;
+        double u;
+        double v;
+        if (ax >= ay && ax >= az) {
+            side = x < 0 ? 1 : 0;
+            u = y / ax;
+            v = z / ax;
+        } else if (ay >= az) {
+            side = y < 0 ? 3 : 2;
+            u = x / ay;
+            v = z / ay;
+        } else {
+            side = z < 0 ? 5 : 4;
+            u = x / az;
+            v = y / az;
+        }
+
+        int i = Math.min((int) ((u + 1.0d) * (0.5d * CUBE_MAP_SIZE)), CUBE_MAP_SIZE - 1);
+        int j = Math.min((int) ((v + 1.0d) * (0.5d * CUBE_MAP_SIZE)), CUBE_MAP_SIZE - 1);
+        return (side * CUBE_MAP_SIZE + j) * CUBE_MAP_SIZE + i;
     }
 
     protected static int findTriangleGrid(double x, double y) {
@@ -224,6 +431,22 @@ public class DymaxionProjection implements GeographicProjection {
         return FACE_ON_GRID[row * 11 + col]; //get face at this position
     }
 
+    /**
+     * Finds the face containing a whole axis-aligned rectangle, if any.
+     * <p>
+     * The area of each face is an intersection of half-planes, and the computations in {@link #findTriangleGrid(double, double)} are monotonic,
+     * so a rectangle is entirely on a face if its four corners are.
+     *
+     * @return the face containing the rectangle, or -1 if its corners are on different faces or out of bounds
+     */
+    protected static int findTriangleGrid(double x0, double y0, double x1, double y1) {
+        int face = findTriangleGrid(x0, y0);
+        if (face == -1 || findTriangleGrid(x1, y0) != face || findTriangleGrid(x0, y1) != face || findTriangleGrid(x1, y1) != face) {
+            return -1;
+        }
+        return face;
+    }
+
     protected static double[] yRot(double[] spherical, double rot) {
         double[] c = MathUtils.spherical2Cartesian(spherical);
 
@@ -245,55 +468,75 @@ public class DymaxionProjection implements GeographicProjection {
     /**
      * Finds the face of the icosahedron on which to project a point.
      * In practice, it works by finding the face with the closest centroid to the point.
+     * Only the few faces which can be the closest one in the point's cell of a cube map are checked, which is usually just one.
      *
-     * @param vector - position vector as double array of length 3, using Cartesian coordinates
+     * @param x - x coordinate of the point's position vector
+     * @param y - y coordinate of the point's position vector
+     * @param z - z coordinate of the point's position vector
      * @return an integer identifying the face on which to project the point
      */
-    protected int findTriangle(double[] vector) {
+    protected int findTriangle(double x, double y, double z) {
+        int faces = CUBE_MAP_FACES[cubeMapCell(x, y, z)];
+        int count = faces & 7;
+        int face = (faces >>> 3) & 31;
+        if (count == 1) {
+            return face;
+        }
 
         double min = Double.MAX_VALUE;
-        int face = 0;
-
-        for (int i = 0; i < 20; i++) {
-            double xd = CENTROIDS[i][0] - vector[0];
-            double yd = CENTROIDS[i][1] - vector[1];
-            double zd = CENTROIDS[i][2] - vector[2];
+        for (int k = 0; k < count; k++) {
+            int i = (faces >>> (3 + 5 * k)) & 31;
+            double xd = CENTROIDS_X[i] - x;
+            double yd = CENTROIDS_Y[i] - y;
+            double zd = CENTROIDS_Z[i] - z;
 
             double dissq = xd * xd + yd * yd + zd * zd;
             if (dissq < min) {
-
-                if (dissq < 0.1) //TODO: enlarge radius
-                {
-                    return i;
-                }
-
                 face = i;
                 min = dissq;
             }
         }
-
         return face;
     }
 
-    protected double[] triangleTransform(double[] vec) {
+    /**
+     * Projects a point on the reference face onto the reference triangle.
+     *
+     * @param x   - x coordinate of the point's position vector, relative to the reference face
+     * @param y   - y coordinate of the point's position vector, relative to the reference face
+     * @param z   - z coordinate of the point's position vector, relative to the reference face
+     * @param dst - array to store the {x, y} result in
+     * @param off - index to store the result at
+     */
+    protected void triangleTransform(double x, double y, double z, double[] dst, int off) {
 
-        double S = Z / vec[2];
+        double S = Z / z;
 
-        double xp = S * vec[0];
-        double yp = S * vec[1];
+        double xp = S * x;
+        double yp = S * y;
 
-        double a = Math.atan((2 * yp / MathUtils.ROOT3 - EL6) / DVE); //ARC/2 terms cancel
-        double b = Math.atan((xp - yp / MathUtils.ROOT3 - EL6) / DVE);
-        double c = Math.atan((-xp - yp / MathUtils.ROOT3 - EL6) / DVE);
+        double a = this.atan((2 * yp / MathUtils.ROOT3 - EL6) / DVE); //ARC/2 terms cancel
+        double b = this.atan((xp - yp / MathUtils.ROOT3 - EL6) / DVE);
+        double c = this.atan((-xp - yp / MathUtils.ROOT3 - EL6) / DVE);
 
-        return new double[]{ 0.5 * (b - c), (2 * a - b - c) / (2 * MathUtils.ROOT3) };
+        dst[off] = 0.5 * (b - c);
+        dst[off + 1] = (2 * a - b - c) / (2 * MathUtils.ROOT3);
     }
 
-    protected double[] inverseTriangleTransformNewton(double xpp, double ypp) {
+    /**
+     * Inverts {@link #triangleTransform(double, double, double, double[], int)} using Newton's method.
+     *
+     * @param xpp - x coordinate on the reference triangle
+     * @param ypp - y coordinate on the reference triangle
+     * @param dst - array to store the x and y coordinates of the position vector in
+     * @param off - index to store the result at
+     * @return the z coordinate of the position vector
+     */
+    protected double inverseTriangleTransformNewton(double xpp, double ypp, double[] dst, int off) {
 
         //a & b are linearly related to c, so using the tan of sum formula we know: tan(c+off) = (tanc + tanoff)/(1-tanc*tanoff)
-        double tanaoff = Math.tan(MathUtils.ROOT3 * ypp + xpp); // a = c + root3*y'' + x''
-        double tanboff = Math.tan(2 * xpp); // b = c + 2x''
+        double tanaoff = this.tan(MathUtils.ROOT3 * ypp + xpp); // a = c + root3*y'' + x''
+        double tanboff = this.tan(2 * xpp); // b = c + 2x''
 
         double anumer = tanaoff * tanaoff + 1;
         double bnumer = tanboff * tanboff + 1;
@@ -308,21 +551,26 @@ public class DymaxionProjection implements GeographicProjection {
 
         //double fp = anumer + bnumer + 1; //derivative relative to tanc
 
-        //int i = newton;
-        for (int i = 0; i < NEWTON; i++) {
+        //c is an angle on the sphere, and moves by less than tanc does
+        double tolerance = this.precision.getTolerance();
+        int iterations = 0;
+        double step;
+        do {
             double f = tana + tanb + tanc - R; //R = tana + tanb + tanc
             double fp = anumer * adenom * adenom + bnumer * bdenom * bdenom + 1; //derivative relative to tanc
 
             //TODO: fp could be simplified on first loop: 1 + anumer + bnumer
 
-            tanc -= f / fp;
+            step = f / fp;
+            tanc -= step;
 
             adenom = 1 / (1 - tanc * tanaoff);
             bdenom = 1 / (1 - tanc * tanboff);
 
             tana = (tanc + tanaoff) * adenom;
             tanb = (tanc + tanboff) * bdenom;
-        }
+        } while (++iterations < NEWTON && Math.abs(step) > tolerance);
+        this.toGeoIterations.record(iterations);
 
         //simple reversal algebra based on tan values
         double yp = MathUtils.ROOT3 * (DVE * tana + EL6) / 2;
@@ -334,77 +582,147 @@ public class DymaxionProjection implements GeographicProjection {
 
         double z = 1 / Math.sqrt(1 + xpoZ * xpoZ + ypoZ * ypoZ);
 
-        return new double[]{ z * xpoZ, z * ypoZ, z };
+        dst[off] = z * xpoZ;
+        dst[off + 1] = z * ypoZ;
+        return z;
     }
 
-    protected double[] inverseTriangleTransform(double x, double y) {
-        return this.inverseTriangleTransformNewton(x, y);
+    /**
+     * Inverts {@link #triangleTransform(double, double, double, double[], int)}.
+     *
+     * @param x   - x coordinate on the reference triangle
+     * @param y   - y coordinate on the reference triangle
+     * @param dst - array to store the x and y coordinates of the position vector in
+     * @param off - index to store the result at
+     * @return the z coordinate of the position vector
+     */
+    protected double inverseTriangleTransform(double x, double y, double[] dst, int off) {
+        return this.inverseTriangleTransformNewton(x, y, dst, off);
     }
 
     @Override
     public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-    	
-    	OutOfProjectionBoundsException.checkLongitudeLatitudeInRange(longitude, latitude);
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
 
-        double[] vector = MathUtils.spherical2Cartesian(MathUtils.geo2Spherical(new double[]{ longitude, latitude }));
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
 
-        int face = this.findTriangle(vector);
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Subclasses should override this rather than {@link #fromGeo(double, double)}, which is implemented on top of it.
+     */
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90) {
+            return false;
+        }
+
+        //convert to spherical coordinates (longitude and colatitude), then to a position vector
+        double lambda = Math.toRadians(longitude);
+        double phi = Math.toRadians(90 - latitude);
+        double sinPhi = Math.sin(phi);
+        this.fromCartesian(sinPhi * Math.cos(lambda), sinPhi * Math.sin(lambda), Math.cos(phi), dst, off);
+        return true;
+    }
+
+    /**
+     * Projects a point given by its position vector.
+     *
+     * @param x   - x coordinate of the point's position vector
+     * @param y   - y coordinate of the point's position vector
+     * @param z   - z coordinate of the point's position vector
+     * @param dst - array to store the {x, y} result in
+     * @param off - index to store the result at
+     */
+    protected void fromCartesian(double x, double y, double z, double[] dst, int off) {
+        int face = this.findTriangle(x, y, z);
 
         //apply rotation matrix (move triangle onto template triangle)
-        double[] pvec = MathUtils.matVecProdD(ROTATION_MATRICES[face], vector);
-        double[] projectedVec = this.triangleTransform(pvec);
+        double[] m = ROTATION_MATRICES;
+        int i = 9 * face;
+        this.triangleTransform(
+                m[i] * x + m[i + 1] * y + m[i + 2] * z,
+                m[i + 3] * x + m[i + 4] * y + m[i + 5] * z,
+                m[i + 6] * x + m[i + 7] * y + m[i + 8] * z,
+                dst, off);
+        double px = dst[off];
+        double py = dst[off + 1];
 
         //flip triangle to correct orientation
         if (FLIP_TRIANGLE[face]) {
-            projectedVec[0] = -projectedVec[0];
-            projectedVec[1] = -projectedVec[1];
+            px = -px;
+            py = -py;
         }
 
-        vector[0] = projectedVec[0];
         //deal with special snowflakes (child faces 20, 21)
-        if (((face == 15 && vector[0] > projectedVec[1] * MathUtils.ROOT3) || face == 14) && vector[0] > 0) {
-            projectedVec[0] = 0.5 * vector[0] - 0.5 * MathUtils.ROOT3 * projectedVec[1];
-            projectedVec[1] = 0.5 * MathUtils.ROOT3 * vector[0] + 0.5 * projectedVec[1];
+        if (((face == 15 && px > py * MathUtils.ROOT3) || face == 14) && px > 0) {
+            double t = px;
+            px = 0.5 * t - 0.5 * MathUtils.ROOT3 * py;
+            py = 0.5 * MathUtils.ROOT3 * t + 0.5 * py;
             face += 6; //shift 14->20 & 15->21
         }
 
-        projectedVec[0] += CENTER_MAP[face][0];
-        projectedVec[1] += CENTER_MAP[face][1];
-
-        return projectedVec;
+        dst[off] = px + CENTER_MAP_X[face];
+        dst[off + 1] = py + CENTER_MAP_Y[face];
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Subclasses should override this rather than {@link #toGeo(double, double)}, which is implemented on top of it.
+     */
     @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+    public boolean toGeo(double x, double y, double[] dst, int off) {
         int face = findTriangleGrid(x, y);
+        return face != -1 && this.toGeoOnFace(face, x, y, dst, off);
+    }
 
-        if (face == -1) {
-            throw OutOfProjectionBoundsException.get();
-        }
-
-        x -= CENTER_MAP[face][0];
-        y -= CENTER_MAP[face][1];
+    /**
+     * Converts a point on a known face to geographic coordinates.
+     *
+     * @param face - the face the point is on, as given by {@link #findTriangleGrid(double, double)}
+     * @param x    - x map coordinate
+     * @param y    - y map coordinate
+     * @param dst  - array to store the {longitude, latitude} result in
+     * @param off  - index to store the result at
+     * @return whether or not the point could be converted
+     */
+    protected boolean toGeoOnFace(int face, double x, double y, double[] dst, int off) {
+        x -= CENTER_MAP_X[face];
+        y -= CENTER_MAP_Y[face];
 
         //deal with bounds of special snowflakes
         switch (face) {
             case 14:
                 if (x > 0) {
-                    throw OutOfProjectionBoundsException.get();
+                    return false;
                 }
                 break;
             case 20:
                 if (-y * MathUtils.ROOT3 > x) {
-                    throw OutOfProjectionBoundsException.get();
+                    return false;
                 }
                 break;
             case 15:
                 if (x > 0 && x > y * MathUtils.ROOT3) {
-                    throw OutOfProjectionBoundsException.get();
+                    return false;
                 }
                 break;
             case 21:
                 if (x < 0 || -y * MathUtils.ROOT3 > x) {
-                    throw OutOfProjectionBoundsException.get();
+                    return false;
                 }
                 break;
         }
@@ -416,17 +734,150 @@ public class DymaxionProjection implements GeographicProjection {
         }
 
         //invert triangle transform
-        double[] c = this.inverseTriangleTransform(x, y);
-        x = c[0];
-        y = c[1];
-        double z = c[2];
+        double z = this.inverseTriangleTransform(x, y, dst, off);
+        x = dst[off];
+        y = dst[off + 1];
 
-        double[] vec = { x, y, z };
         //apply inverse rotation matrix (move triangle from template triangle to correct position on globe)
-        double[] vecp = MathUtils.matVecProdD(INVERSE_ROTATION_MATRICES[face], vec);
+        double[] m = INVERSE_ROTATION_MATRICES;
+        int i = 9 * face;
+        double xp = m[i] * x + m[i + 1] * y + m[i + 2] * z;
+        double yp = m[i + 3] * x + m[i + 4] * y + m[i + 5] * z;
+        double zp = m[i + 6] * x + m[i + 7] * y + m[i + 8] * z;
 
         //convert back to geo coordinates
-        return MathUtils.spherical2Geo(MathUtils.cartesian2Spherical(vecp));
+        dst[off] = Math.toDegrees(this.atan2(yp, xp));
+        dst[off + 1] = 90 - Math.toDegrees(this.atan2(Math.sqrt(xp * xp + yp * yp), zp));
+        return true;
+    }
+
+    /**
+     * Computes {@link Math#atan(double)}, or approximates it if {@link #fastMath} is set.
+     */
+    protected double atan(double x) {
+        return this.fastMath ? FastMath.atan(x) : Math.atan(x);
+    }
+
+    /**
+     * Computes {@link Math#atan2(double, double)}, or approximates it if {@link #fastMath} is set.
+     */
+    protected double atan2(double y, double x) {
+        return this.fastMath ? FastMath.atan2(y, x) : Math.atan2(y, x);
+    }
+
+    /**
+     * Computes {@link Math#tan(double)}, or approximates it if {@link #fastMath} is set.
+     */
+    protected double tan(double x) {
+        return this.fastMath ? FastMath.tan(x) : Math.tan(x);
+    }
+
+    /**
+     * Checks whether {@link #toGeo(double, double, double[], int)} is smooth over a convex quadrilateral, i.e. whether the quadrilateral is entirely on a
+     * single face, away from the edges of the map and from any other discontinuity.
+     * <p>
+     * This is conservative: it may return {@code false} for some smooth areas, but never returns {@code true} for an area containing a seam.
+     *
+     * @param corners - the {x, y} coordinates of the quadrilateral's four corners, interleaved
+     * @return whether or not the quadrilateral is free of seams
+     */
+    public boolean isSmooth(double[] corners) {
+        //faces are convex, so a quadrilateral is entirely on a face if its four corners are
+        int face = findTriangleGrid(corners[0], corners[1]);
+        for (int i = 2; i < 8 && face != -1; i += 2) {
+            if (findTriangleGrid(corners[i], corners[i + 1]) != face) {
+                face = -1;
+            }
+        }
+        return face != -1 && this.isSmoothOnFace(face, corners);
+    }
+
+    /**
+     * Checks whether {@link #toGeo(double, double, double[], int)} is smooth over a convex quadrilateral which is entirely on the given face.
+     *
+     * @param face    - the face containing the quadrilateral
+     * @param corners - the {x, y} coordinates of the quadrilateral's four corners, interleaved
+     * @return whether or not the quadrilateral is free of seams
+     * @see #isSmooth(double[])
+     */
+    protected boolean isSmoothOnFace(int face, double[] corners) {
+        //faces 14, 15, 20 and 21 are cut in two, don't bother checking which half the quadrilateral is on
+        return face != 14 && face != 15 && face != 20 && face != 21;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The grid is split in tiles of {@value #GRID_TILE}x{@value #GRID_TILE} points, and the face is only looked up once for tiles which are entirely on
+     * a single face. Subclasses overriding {@link #toGeo(double, double, double[], int)} must override this too.
+     */
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        int converted = 0;
+        for (int tileY = 0; tileY < height; tileY += GRID_TILE) {
+            int endY = Math.min(tileY + GRID_TILE, height);
+            for (int tileX = 0; tileX < width; tileX += GRID_TILE) {
+                int endX = Math.min(tileX + GRID_TILE, width);
+                int tileFace = findTriangleGrid(originX + tileX * stepX, originY + tileY * stepY, originX + (endX - 1) * stepX, originY + (endY - 1) * stepY);
+
+                for (int j = tileY; j < endY; j++) {
+                    double y = originY + j * stepY;
+                    for (int i = tileX; i < endX; i++) {
+                        double x = originX + i * stepX;
+                        int face = tileFace != -1 ? tileFace : findTriangleGrid(x, y);
+                        int index = off + j * width + i;
+                        if (face != -1 && this.toGeoOnFace(face, x, y, dst, 2 * index)) {
+                            BatchUtils.setValid(valid, index);
+                            converted++;
+                        } else {
+                            BatchUtils.setInvalid(dst, valid, index);
+                        }
+                    }
+                }
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The position vectors are separable, so the trigonometric functions of the longitudes and latitudes are only computed once per column and row.
+     */
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+
+        double[] sinLambda = new double[width];
+        double[] cosLambda = new double[width];
+        for (int i = 0; i < width; i++) {
+            double lambda = Math.toRadians(originLongitude + i * stepLongitude);
+            sinLambda[i] = Math.sin(lambda);
+            cosLambda[i] = Math.cos(lambda);
+        }
+
+        int converted = 0;
+        for (int j = 0; j < height; j++) {
+            double latitude = originLatitude + j * stepLatitude;
+            double phi = Math.toRadians(90 - latitude);
+            double sinPhi = Math.sin(phi);
+            double cosPhi = Math.cos(phi);
+            boolean latitudeInBounds = !(Math.abs(latitude) > 90);
+
+            for (int i = 0; i < width; i++) {
+                int index = off + j * width + i;
+                double longitude = originLongitude + i * stepLongitude;
+                if (latitudeInBounds && !(Math.abs(longitude) > 180)) {
+                    this.fromCartesian(sinPhi * cosLambda[i], sinPhi * sinLambda[i], cosPhi, dst, 2 * index);
+                    BatchUtils.setValid(valid, index);
+                    converted++;
+                } else {
+                    BatchUtils.setInvalid(dst, valid, index);
+                }
+            }
+        }
+        return converted;
     }
 
     @Override
@@ -3,6 +3,8 @@ package net.buildtheearth.terraprojection.projection.mercator;
 import net.buildtheearth.terraprojection.TerraProjectionConstants;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
 import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.util.BatchKernels;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 
 /**
  * Implementation of the Mercator projection, normalized between -1 and 1.
@@ -30,6 +32,48 @@ public class CenteredMercatorProjection implements GeographicProjection {
         };
     }
 
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (Math.abs(x) > 1 || Math.abs(y) > 1) {
+            return false;
+        }
+        dst[off] = x * 180.0;
+        dst[off + 1] = Math.toDegrees(Math.atan(Math.exp(-y * Math.PI)) * 2 - Math.PI / 2);
+        return true;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > WebMercatorProjection.LIMIT_LATITUDE) {
+            return false;
+        }
+        dst[off] = longitude / 180.0;
+        dst[off + 1] = -(Math.log(Math.tan((Math.PI / 2 + Math.toRadians(latitude)) / 2))) / Math.PI;
+        return true;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, -1, -1, 1, 1);
+        BatchKernels.INSTANCE.mercatorToGeo(src, dst, off, count, 180.0, 0.0, -Math.PI, 0.0);
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, -180, -WebMercatorProjection.LIMIT_LATITUDE, 180, WebMercatorProjection.LIMIT_LATITUDE);
+        BatchKernels.INSTANCE.mercatorFromGeo(src, dst, off, count, 1.0 / 180.0, 0.0, -1.0 / Math.PI, 0.0);
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
     @Override
     public double[] bounds() {
         return new double[]{ -1, -1, 1, 1 };
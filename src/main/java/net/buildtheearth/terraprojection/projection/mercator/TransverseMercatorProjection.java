@@ -31,7 +31,27 @@ public class TransverseMercatorProjection implements GeographicProjection {
 
     @Override
     public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        OutOfProjectionBoundsException.checkLongitudeLatitudeInRange(longitude, latitude);
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90) {
+            return false;
+        }
         double lam = Math.toRadians(longitude);
         double phi = Math.toRadians(latitude);
         double centralMeridian = getCentralMeridian(lam);
@@ -41,19 +61,23 @@ public class TransverseMercatorProjection implements GeographicProjection {
         double x = Math.log((1.0 + b) / (1.0 - b)) / 2;
         double y = Math.atan2(Math.tan(phi), Math.cos(lam));
         x += centralMeridian;
-        return new double[]{ x, y };
+        dst[off] = x;
+        dst[off + 1] = y;
+        return true;
     }
 
     @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        OutOfProjectionBoundsException.checkInRange(x, y, Math.PI, Math.PI / 2);
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (Math.abs(x) > Math.PI || Math.abs(y) > Math.PI / 2) {
+            return false;
+        }
         double centralMeridian = getCentralMeridian(x);
         x -= centralMeridian;
         double lam = Math.atan2(Math.sinh(x), Math.cos(y)) + centralMeridian;
         double phi = Math.asin(Math.sin(y) / Math.cosh(x));
-        double lon = Math.toDegrees(lam);
-        double lat = Math.toDegrees(phi);
-        return new double[]{ lon, lat };
+        dst[off] = Math.toDegrees(lam);
+        dst[off + 1] = Math.toDegrees(phi);
+        return true;
     }
 
     @Override
@@ -8,6 +8,8 @@ import com.google.gson.annotations.JsonAdapter;
 import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
 import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.util.BatchKernels;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 import net.buildtheearth.terraprojection.util.MathUtils;
 
@@ -71,6 +73,48 @@ public class WebMercatorProjection implements GeographicProjection {
         };
     }
 
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (x < 0 || y < 0 || x > this.scaleFrom || y > this.scaleFrom) {
+            return false;
+        }
+        dst[off] = Math.toDegrees(this.scaleTo * x * MathUtils.TAU - Math.PI);
+        dst[off + 1] = Math.toDegrees(Math.atan(Math.exp(Math.PI - this.scaleTo * y * MathUtils.TAU)) * 2 - Math.PI / 2);
+        return true;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > LIMIT_LATITUDE) {
+            return false;
+        }
+        dst[off] = this.scaleFrom * (Math.toRadians(longitude) + Math.PI) / MathUtils.TAU;
+        dst[off + 1] = this.scaleFrom * (Math.PI - Math.log(Math.tan((Math.PI / 2 + Math.toRadians(latitude)) / 2))) / MathUtils.TAU;
+        return true;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, 0, 0, this.scaleFrom, this.scaleFrom);
+        BatchKernels.INSTANCE.mercatorToGeo(src, dst, off, count, this.scaleTo * 360.0, -180.0, -this.scaleTo * MathUtils.TAU, Math.PI);
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        int converted = BatchKernels.INSTANCE.checkRange(src, off, count, valid, -180, -LIMIT_LATITUDE, 180, LIMIT_LATITUDE);
+        BatchKernels.INSTANCE.mercatorFromGeo(src, dst, off, count, this.scaleFrom / 360.0, this.scaleFrom / 2.0, -this.scaleFrom / MathUtils.TAU, this.scaleFrom / 2.0);
+        if (converted != count) {
+            BatchUtils.fillInvalid(dst, off, count, valid);
+        }
+        return converted;
+    }
+
     @Override
     public double[] bounds() {
         return new double[]{ 0, 0, this.scaleFrom, this.scaleFrom };
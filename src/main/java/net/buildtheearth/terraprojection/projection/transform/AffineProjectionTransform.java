@@ -0,0 +1,162 @@
+package net.buildtheearth.terraprojection.projection.transform;
+
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.util.BatchKernels;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+
+/**
+ * Base class for transforms which apply an affine transformation to the warped projection's projected space.
+ * <p>
+ * Each transform is described by a 2x3 matrix {@code {m00, m01, m02, m10, m11, m12}}, which maps a point of the delegate's projected space to
+ * {@code x' = m00 * x + m01 * y + m02, y' = m10 * x + m11 * y + m12}, and by its inverse.
+ * <p>
+ * When the delegate is itself an affine transform, both matrices are fused with the delegate's ones when the transform is constructed (i.e. when it is parsed),
+ * so a run of consecutive affine transforms costs a single multiply-add on the projection which is at the bottom of the run, no matter how long it is.
+ * The chain itself is kept as-is, so {@link #getDelegate()}, {@link #toString()}, {@link #properties()} and JSON serialization are unaffected.
+ * <p>
+ * For the same reason, grids are mapped to the base projection's space as a whole rather than point by point: a grid stays a regular grid under
+ * scaling, offsets and flips, so it is forwarded to the base projection's grid methods.
+ */
+public abstract class AffineProjectionTransform extends ProjectionTransform {
+    /**
+     * The first projection below this transform which is not an affine transform.
+     */
+    private transient final GeographicProjection base;
+    /**
+     * Maps the base projection's projected space to this projection's.
+     */
+    private transient final double[] fromGeoMatrix;
+    /**
+     * Maps this projection's projected space to the base projection's.
+     */
+    private transient final double[] toGeoMatrix;
+
+    /**
+     * @param delegate - projection to transform
+     * @param forward  - the matrix mapping the delegate's projected space to this transform's
+     * @param inverse  - the inverse of {@code forward}
+     */
+    protected AffineProjectionTransform(GeographicProjection delegate, double[] forward, double[] inverse) {
+        super(delegate);
+        if (delegate instanceof AffineProjectionTransform) {
+            AffineProjectionTransform affine = (AffineProjectionTransform) delegate;
+            this.base = affine.base;
+            this.fromGeoMatrix = compose(forward, affine.fromGeoMatrix);
+            this.toGeoMatrix = compose(affine.toGeoMatrix, inverse);
+        } else {
+            this.base = delegate;
+            this.fromGeoMatrix = forward.clone();
+            this.toGeoMatrix = inverse.clone();
+        }
+    }
+
+    /**
+     * @return the matrix of {@code outer} applied after {@code inner}
+     */
+    private static double[] compose(double[] outer, double[] inner) {
+        return new double[]{
+                outer[0] * inner[0] + outer[1] * inner[3],
+                outer[0] * inner[1] + outer[1] * inner[4],
+                outer[0] * inner[2] + outer[1] * inner[5] + outer[2],
+                outer[3] * inner[0] + outer[4] * inner[3],
+                outer[3] * inner[1] + outer[4] * inner[4],
+                outer[3] * inner[2] + outer[4] * inner[5] + outer[5]
+        };
+    }
+
+    /**
+     * @return the first projection below this transform which is not an affine transform
+     */
+    public GeographicProjection getBase() {
+        return this.base;
+    }
+
+    /**
+     * @return the matrix mapping {@link #getBase()}'s projected space to this projection's
+     */
+    public double[] getFromGeoMatrix() {
+        return this.fromGeoMatrix.clone();
+    }
+
+    /**
+     * @return the matrix mapping this projection's projected space to {@link #getBase()}'s
+     */
+    public double[] getToGeoMatrix() {
+        return this.toGeoMatrix.clone();
+    }
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] m = this.toGeoMatrix;
+        return this.base.toGeo(x * m[0] + y * m[1] + m[2], x * m[3] + y * m[4] + m[5]);
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] m = this.fromGeoMatrix;
+        double[] p = this.base.fromGeo(longitude, latitude);
+        double x = p[0];
+        double y = p[1];
+        p[0] = x * m[0] + y * m[1] + m[2];
+        p[1] = x * m[3] + y * m[4] + m[5];
+        return p;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        double[] m = this.toGeoMatrix;
+        return this.base.toGeo(x * m[0] + y * m[1] + m[2], x * m[3] + y * m[4] + m[5], dst, off);
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (!this.base.fromGeo(longitude, latitude, dst, off)) {
+            return false;
+        }
+        double[] m = this.fromGeoMatrix;
+        double x = dst[off];
+        double y = dst[off + 1];
+        dst[off] = x * m[0] + y * m[1] + m[2];
+        dst[off + 1] = x * m[3] + y * m[4] + m[5];
+        return true;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+        double[] m = this.toGeoMatrix;
+        BatchKernels.INSTANCE.affine(src, dst, off, count, m[0], m[1], m[2], m[3], m[4], m[5]);
+        return this.base.toGeoBatch(dst, dst, off, count, valid);
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        int converted = this.base.fromGeoBatch(src, dst, off, count, valid);
+        double[] m = this.fromGeoMatrix;
+        BatchKernels.INSTANCE.affine(dst, dst, off, count, m[0], m[1], m[2], m[3], m[4], m[5]);
+        return converted;
+    }
+
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        double[] m = this.toGeoMatrix;
+        if (m[1] == 0.0d && m[3] == 0.0d) { //axis-aligned, the grid is still a regular grid in the base projection's space
+            return this.base.toGeoGrid(originX * m[0] + m[2], originY * m[4] + m[5], stepX * m[0], stepY * m[4], width, height, dst, off, valid);
+        }
+
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        BatchUtils.fillGrid(dst, off, width, height,
+                originX * m[0] + originY * m[1] + m[2], stepX * m[0], stepY * m[1],
+                originX * m[3] + originY * m[4] + m[5], stepX * m[3], stepY * m[4]);
+        return this.base.toGeoBatch(dst, dst, off, width * height, valid);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        int converted = this.base.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+        double[] m = this.fromGeoMatrix;
+        BatchKernels.INSTANCE.affine(dst, dst, off, width * height, m[0], m[1], m[2], m[3], m[4], m[5]);
+        return converted;
+    }
+}
@@ -0,0 +1,457 @@
+package net.buildtheearth.terraprojection.projection.transform;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.projection.dymaxion.DymaxionProjection;
+import net.buildtheearth.terraprojection.util.JsonUtils;
+
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Approximates the warped projection's inverse ({@link #toGeo(double, double, double[], int)}) with polynomials, up to a given error in meters.
+ * <p>
+ * The projected space is split into square tiles, each of which is lazily approximated by a pair of Chebyshev polynomials interpolating the delegate
+ * at {@value #NODES}x{@value #NODES} Chebyshev nodes (and evaluated in the monomial basis). Each fit is checked against the delegate on a denser grid before being used, with half of the
+ * allowed error as a margin for the points in between. Tiles where it isn't accurate enough are split in four, down to {@value #MAX_DEPTH} times,
+ * and the smallest tiles which still can't be approximated are converted exactly. Tiles close to the poles or to the antimeridian are always converted
+ * exactly.
+ * <p>
+ * When the delegate is a {@link DymaxionProjection} (possibly behind affine transforms), no fit ever spans one of its seams, as given by
+ * {@link DymaxionProjection#isSmooth(double[])}. This also guarantees that a point can be converted if and only if the delegate can convert it.
+ * For other delegates, this is only checked on the grid the fits are checked on.
+ * <p>
+ * The forward projection is always exact.
+ */
+@JsonAdapter(ApproximateProjectionTransform.Deserializer.class)
+public class ApproximateProjectionTransform extends ProjectionTransform {
+    public static final double DEFAULT_MAX_ERROR_METERS = 0.01d;
+    public static final double DEFAULT_TILE_SIZE = 1024.0d;
+
+    /**
+     * Number of Chebyshev nodes along each axis of a tile, i.e. one more than the degree of the polynomials
+     */
+    private static final int NODES = 4;
+
+    /**
+     * Number of points along each axis of the grid fits are checked on
+     */
+    private static final int CHECK_POINTS = 11;
+
+    /**
+     * Maximum number of times a tile can be split in four
+     */
+    private static final int MAX_DEPTH = 6;
+
+    /**
+     * Maximum number of tiles to keep, to bound memory usage. Once it is reached, the CLOCK algorithm picks which tiles to discard.
+     */
+    private static final int MAX_TILES = 1 << 16;
+
+    private static final double METERS_PER_DEGREE_LATITUDE = TerraProjectionConstants.EARTH_POLAR_CIRCUMFERENCE / 360.0d;
+    private static final double METERS_PER_DEGREE_LONGITUDE = TerraProjectionConstants.EARTH_CIRCUMFERENCE / 360.0d;
+
+    private static final Node EXACT = new Node() {
+        @Override
+        boolean toGeo(ApproximateProjectionTransform projection, double x, double y, double[] dst, int off) {
+            return projection.delegate.toGeo(x, y, dst, off);
+        }
+    };
+
+    @Getter
+    private final double maxErrorMeters;
+    @Getter
+    private final double tileSize;
+
+    /**
+     * The Dymaxion projection at the bottom of the delegate's affine transforms, if any
+     */
+    private transient final DymaxionProjection seams;
+    /**
+     * Maps this projection's projected space to {@link #seams}'
+     */
+    private transient final double[] seamsMatrix;
+
+    private transient final Map<Long, Tile> tiles = new ConcurrentHashMap<>();
+    /**
+     * The last tile which was used by each thread, as consecutive conversions by a thread are very likely to be on the same tile
+     */
+    private transient final ThreadLocal<Tile> lastTile = new ThreadLocal<>();
+    /**
+     * The CLOCK hand going over {@link #tiles}, guarded by {@link #tiles}' lock
+     */
+    private transient Iterator<Tile> hand;
+
+    /**
+     * @param delegate       - projection to approximate
+     * @param maxErrorMeters - maximum distance between the approximated and exact geographic coordinates, in meters. Defaults to {@value #DEFAULT_MAX_ERROR_METERS}
+     * @param tileSize       - side length of the tiles the projected space is split into, in the delegate's units. Defaults to {@value #DEFAULT_TILE_SIZE}
+     */
+    public ApproximateProjectionTransform(GeographicProjection delegate, Double maxErrorMeters, Double tileSize) {
+        super(delegate);
+        this.maxErrorMeters = maxErrorMeters != null ? maxErrorMeters : DEFAULT_MAX_ERROR_METERS;
+        this.tileSize = tileSize != null ? tileSize : DEFAULT_TILE_SIZE;
+        Preconditions.checkArgument(this.maxErrorMeters > 0.0d && Double.isFinite(this.maxErrorMeters), "Maximum error must be positive and finite");
+        Preconditions.checkArgument(this.tileSize > 0.0d && Double.isFinite(this.tileSize), "Tile size must be positive and finite");
+
+        if (delegate instanceof AffineProjectionTransform && ((AffineProjectionTransform) delegate).getBase() instanceof DymaxionProjection) {
+            this.seams = (DymaxionProjection) ((AffineProjectionTransform) delegate).getBase();
+            this.seamsMatrix = ((AffineProjectionTransform) delegate).getToGeoMatrix();
+        } else if (delegate instanceof DymaxionProjection) {
+            this.seams = (DymaxionProjection) delegate;
+            this.seamsMatrix = new double[]{ 1, 0, 0, 0, 1, 0 };
+        } else {
+            this.seams = null;
+            this.seamsMatrix = null;
+        }
+    }
+
+    static class Deserializer implements JsonDeserializer<ApproximateProjectionTransform> {
+        public ApproximateProjectionTransform deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new ApproximateProjectionTransform(
+                    JsonUtils.getProjectionDelegate(jsonObject, context),
+                    JsonUtils.getNullableDouble(jsonObject, "maxErrorMeters"),
+                    JsonUtils.getNullableDouble(jsonObject, "tileSize")
+            );
+        }
+    }
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        return super.delegate.fromGeo(longitude, latitude);
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        double tileX = Math.floor(x / this.tileSize);
+        double tileY = Math.floor(y / this.tileSize);
+        if (!(Math.abs(tileX) < Integer.MAX_VALUE && Math.abs(tileY) < Integer.MAX_VALUE)) { //also catches NaNs
+            return super.delegate.toGeo(x, y, dst, off);
+        }
+
+        long key = ((long) (int) tileX << 32) | ((int) tileY & 0xFFFFFFFFL);
+        Tile tile = this.lastTile.get();
+        if (tile == null || tile.key != key) {
+            tile = this.tile(key, tileX * this.tileSize, tileY * this.tileSize);
+            this.lastTile.set(tile);
+        }
+        if (!tile.referenced) { //avoid writing to shared memory on every conversion
+            tile.referenced = true;
+        }
+        return tile.node.toGeo(this, x, y, dst, off);
+    }
+
+    private Tile tile(long key, double x0, double y0) {
+        Tile tile = this.tiles.get(key);
+        if (tile == null) {
+            if (this.tiles.size() >= MAX_TILES) {
+                this.evict();
+            }
+            Tile built = new Tile(key, this.build(x0, y0, this.tileSize, 0));
+            tile = this.tiles.putIfAbsent(key, built);
+            if (tile == null) {
+                tile = built;
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Discards tiles until there are fewer than {@link #MAX_TILES}, giving every tile which was used since the hand last passed it a second chance.
+     */
+    private void evict() {
+        synchronized (this.tiles) {
+            while (this.tiles.size() >= MAX_TILES) {
+                if (this.hand == null || !this.hand.hasNext()) {
+                    this.hand = this.tiles.values().iterator();
+                }
+                Tile tile = this.hand.next();
+                if (tile.referenced) {
+                    tile.referenced = false;
+                } else {
+                    this.hand.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        return super.delegate.fromGeo(longitude, latitude, dst, off);
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return super.delegate.fromGeoBatch(src, dst, off, count, valid);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        return super.delegate.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+    }
+
+    private Node build(double x0, double y0, double size, int depth) {
+        if (this.isSmooth(x0, y0, size)) {
+            Node fit = this.fit(x0, y0, size);
+            if (fit != null) {
+                return fit;
+            }
+        }
+        return depth < MAX_DEPTH ? new Split(x0, y0, size * 0.5d, depth + 1) : EXACT;
+    }
+
+    private boolean isSmooth(double x0, double y0, double size) {
+        if (this.seams == null) {
+            return true;
+        }
+
+        double[] m = this.seamsMatrix;
+        double[] corners = new double[8];
+        for (int i = 0; i < 4; i++) {
+            double x = (i & 1) == 0 ? x0 : x0 + size;
+            double y = (i & 2) == 0 ? y0 : y0 + size;
+            corners[2 * i] = x * m[0] + y * m[1] + m[2];
+            corners[2 * i + 1] = x * m[3] + y * m[4] + m[5];
+        }
+        return this.seams.isSmooth(corners);
+    }
+
+    /**
+     * Fits Chebyshev polynomials to the delegate over a tile, and checks them.
+     *
+     * @return the fit, or {@code null} if the tile can't be approximated accurately enough
+     */
+    private Node fit(double x0, double y0, double size) {
+        double[] geo = new double[2];
+        double[] lonSamples = new double[NODES * NODES];
+        double[] latSamples = new double[NODES * NODES];
+        for (int j = 0; j < NODES; j++) {
+            double y = y0 + (chebyshevNode(j) + 1.0d) * 0.5d * size;
+            for (int i = 0; i < NODES; i++) {
+                double x = x0 + (chebyshevNode(i) + 1.0d) * 0.5d * size;
+                if (!super.delegate.toGeo(x, y, geo, 0)) {
+                    return null;
+                }
+                lonSamples[j * NODES + i] = geo[0];
+                latSamples[j * NODES + i] = geo[1];
+            }
+        }
+
+        Fit fit = new Fit(x0, y0, size, chebyshevCoefficients(lonSamples), chebyshevCoefficients(latSamples));
+
+        double[] approximated = new double[2];
+        double[] longitudes = new double[CHECK_POINTS * CHECK_POINTS];
+        for (int j = 0; j < CHECK_POINTS; j++) {
+            double y = y0 + size * j / (CHECK_POINTS - 1);
+            for (int i = 0; i < CHECK_POINTS; i++) {
+                double x = x0 + size * i / (CHECK_POINTS - 1);
+                if (!super.delegate.toGeo(x, y, geo, 0) || Math.abs(geo[1]) > 89.0d) {
+                    return null;
+                }
+                fit.toGeo(this, x, y, approximated, 0);
+
+                double errorX = (approximated[0] - geo[0]) * METERS_PER_DEGREE_LONGITUDE * Math.cos(Math.toRadians(geo[1]));
+                double errorY = (approximated[1] - geo[1]) * METERS_PER_DEGREE_LATITUDE;
+                if (!(errorX * errorX + errorY * errorY <= 0.25d * this.maxErrorMeters * this.maxErrorMeters)) {
+                    return null;
+                }
+
+                longitudes[j * CHECK_POINTS + i] = geo[0];
+            }
+        }
+
+        //the antimeridian can't be detected from the error if it only cuts a corner of the tile between two checked points, so stay well away from it
+        double maxStep = 0.0d;
+        double minDistanceToAntimeridian = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < CHECK_POINTS; j++) {
+            for (int i = 0; i < CHECK_POINTS; i++) {
+                double longitude = longitudes[j * CHECK_POINTS + i];
+                if (i > 0) {
+                    maxStep = Math.max(maxStep, Math.abs(longitude - longitudes[j * CHECK_POINTS + i - 1]));
+                }
+                if (j > 0) {
+                    maxStep = Math.max(maxStep, Math.abs(longitude - longitudes[(j - 1) * CHECK_POINTS + i]));
+                }
+                minDistanceToAntimeridian = Math.min(minDistanceToAntimeridian, 180.0d - Math.abs(longitude));
+            }
+        }
+        return minDistanceToAntimeridian > 2.0d * maxStep ? fit : null;
+    }
+
+    /**
+     * @return the i-th Chebyshev node of the first kind, in [-1, 1]
+     */
+    private static double chebyshevNode(int i) {
+        return Math.cos(Math.PI * (i + 0.5d) / NODES);
+    }
+
+    /**
+     * Computes the coefficients of the Chebyshev polynomial interpolating values sampled at the Chebyshev nodes.
+     *
+     * @param samples - the values, indexed by {@code j * NODES + i} for the i-th node along x and the j-th node along y
+     * @return the coefficients, indexed by {@code l * NODES + k} for {@code T_k(u) * T_l(v)}
+     */
+    private static double[] chebyshevCoefficients(double[] samples) {
+        double[] coefficients = new double[NODES * NODES];
+        for (int l = 0; l < NODES; l++) {
+            for (int k = 0; k < NODES; k++) {
+                double sum = 0.0d;
+                for (int j = 0; j < NODES; j++) {
+                    double tl = Math.cos(Math.PI * l * (j + 0.5d) / NODES);
+                    for (int i = 0; i < NODES; i++) {
+                        sum += samples[j * NODES + i] * Math.cos(Math.PI * k * (i + 0.5d) / NODES) * tl;
+                    }
+                }
+                double scale = (k == 0 ? 1.0d : 2.0d) * (l == 0 ? 1.0d : 2.0d) / (NODES * NODES);
+                coefficients[l * NODES + k] = sum * scale;
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * Converts the coefficients of a two-dimensional Chebyshev series to those of the same polynomial in the monomial basis, which is faster to evaluate.
+     *
+     * @return the coefficients, indexed by {@code q * NODES + p} for {@code u^p * v^q}
+     */
+    private static double[] toMonomials(double[] chebyshev) {
+        //coefficients of each Chebyshev polynomial, using T_k+1(u) = 2u * T_k(u) - T_k-1(u)
+        double[][] t = new double[NODES][NODES];
+        t[0][0] = 1.0d;
+        t[1][1] = 1.0d;
+        for (int k = 2; k < NODES; k++) {
+            for (int p = 0; p < NODES; p++) {
+                t[k][p] = (p > 0 ? 2.0d * t[k - 1][p - 1] : 0.0d) - t[k - 2][p];
+            }
+        }
+
+        double[] monomials = new double[NODES * NODES];
+        for (int l = 0; l < NODES; l++) {
+            for (int k = 0; k < NODES; k++) {
+                double c = chebyshev[l * NODES + k];
+                for (int q = 0; q <= l; q++) {
+                    for (int p = 0; p <= k; p++) {
+                        monomials[q * NODES + p] += c * t[k][p] * t[l][q];
+                    }
+                }
+            }
+        }
+        return monomials;
+    }
+
+    /**
+     * Evaluates a two-dimensional polynomial using Horner's method.
+     */
+    private static double polynomial(double[] monomials, double u, double v) {
+        double result = 0.0d;
+        for (int q = NODES - 1; q >= 0; q--) {
+            double row = monomials[q * NODES + NODES - 1];
+            for (int p = NODES - 2; p >= 0; p--) {
+                row = row * u + monomials[q * NODES + p];
+            }
+            result = result * v + row;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Approximate (" + super.delegate + ") within " + this.maxErrorMeters + "m";
+    }
+
+    @RequiredArgsConstructor
+    private static final class Tile {
+        private final long key;
+        private final Node node;
+
+        /**
+         * Whether or not this tile was used since the CLOCK hand last passed it. Volatile so that the evicting thread sees the other threads' uses
+         */
+        private volatile boolean referenced;
+    }
+
+    /**
+     * A tile, or part of a tile.
+     * <p>
+     * Nodes are immutable once they are visible to other threads, except for the children of {@link Split}s which are built lazily, and published
+     * through an {@link AtomicReferenceArray} so that other threads only see them once they are fully built.
+     */
+    private static abstract class Node {
+        abstract boolean toGeo(ApproximateProjectionTransform projection, double x, double y, double[] dst, int off);
+    }
+
+    private static final class Fit extends Node {
+        private final double x0;
+        private final double y0;
+        private final double scale;
+        private final double[] longitude;
+        private final double[] latitude;
+
+        Fit(double x0, double y0, double size, double[] longitude, double[] latitude) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.scale = 2.0d / size;
+            this.longitude = toMonomials(longitude);
+            this.latitude = toMonomials(latitude);
+        }
+
+        @Override
+        boolean toGeo(ApproximateProjectionTransform projection, double x, double y, double[] dst, int off) {
+            double u = (x - this.x0) * this.scale - 1.0d;
+            double v = (y - this.y0) * this.scale - 1.0d;
+            dst[off] = polynomial(this.longitude, u, v);
+            dst[off + 1] = polynomial(this.latitude, u, v);
+            return true;
+        }
+    }
+
+    private static final class Split extends Node {
+        private final double x0;
+        private final double y0;
+        private final double half;
+        private final int depth;
+        private final AtomicReferenceArray<Node> children = new AtomicReferenceArray<>(4);
+
+        Split(double x0, double y0, double half, int depth) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.half = half;
+            this.depth = depth;
+        }
+
+        @Override
+        boolean toGeo(ApproximateProjectionTransform projection, double x, double y, double[] dst, int off) {
+            int right = x >= this.x0 + this.half ? 1 : 0;
+            int top = y >= this.y0 + this.half ? 1 : 0;
+            int index = (top << 1) | right;
+
+            Node child = this.children.get(index);
+            if (child == null) { //two threads may both build the child, in which case the first one is kept
+                child = projection.build(this.x0 + right * this.half, this.y0 + top * this.half, this.half, this.depth);
+                if (!this.children.compareAndSet(index, null, child)) {
+                    child = this.children.get(index);
+                }
+            }
+            return child.toGeo(projection, x, y, dst, off);
+        }
+    }
+}
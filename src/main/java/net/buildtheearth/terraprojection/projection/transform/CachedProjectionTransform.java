@@ -0,0 +1,243 @@
+package net.buildtheearth.terraprojection.projection.transform;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import lombok.Getter;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+import net.buildtheearth.terraprojection.util.JsonUtils;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the warped projection's inverse ({@link #toGeo(double, double, double[], int)}) for points with integer coordinates, i.e. block positions.
+ * <p>
+ * Results are cached by chunks of {@code chunkSize}x{@code chunkSize} points, which are computed all at once using
+ * {@link GeographicProjection#toGeoGrid(double, double, double, double, int, int, double[], int, long[])} and stored in primitive arrays.
+ * Other points, as well as the forward projection, are passed on to the delegate.
+ * <p>
+ * The cache holds at most {@code maxChunks} chunks, i.e. {@code maxChunks * (16 * chunkSize * chunkSize + chunkSize * chunkSize / 8)} bytes of results.
+ * It is a lock-free set-associative cache: each chunk can only be stored in one set of {@value #WAYS} slots, and the CLOCK algorithm picks which chunk
+ * of a full set to evict. Chunks are immutable once published, so concurrent readers never see a partially written chunk; at worst, two threads
+ * missing on the same chunk at the same time will both compute it, and the set is probed again before inserting so that usually only one copy is kept.
+ */
+@JsonAdapter(CachedProjectionTransform.Deserializer.class)
+public class CachedProjectionTransform extends ProjectionTransform {
+    public static final int DEFAULT_CHUNK_SIZE = 16;
+    public static final int DEFAULT_MAX_CHUNKS = 4096;
+
+    /**
+     * Number of slots in each set of the cache
+     */
+    private static final int WAYS = 8;
+
+    @Getter
+    private final int chunkSize;
+    @Getter
+    private final int maxChunks;
+
+    private transient final AtomicReferenceArray<Chunk> slots;
+    /**
+     * The CLOCK hand of each set. Updates are racy, which only makes eviction slightly less accurate.
+     */
+    private transient final int[] hands;
+    /**
+     * How far the upper half of a key's hash is shifted to get its set. This is 32 when there is a single set, which can't be done in one shift.
+     */
+    private transient final int setShift;
+
+    private transient final LongAdder hits = new LongAdder();
+    private transient final LongAdder misses = new LongAdder();
+    private transient final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param delegate  - projection to cache
+     * @param chunkSize - side length of the chunks results are cached by. Defaults to {@value #DEFAULT_CHUNK_SIZE}
+     * @param maxChunks - maximum number of chunks to keep cached, rounded up to a power of two no smaller than {@value #WAYS}. Defaults to {@value #DEFAULT_MAX_CHUNKS}
+     */
+    public CachedProjectionTransform(GeographicProjection delegate, Integer chunkSize, Integer maxChunks) {
+        super(delegate);
+        this.chunkSize = chunkSize != null ? chunkSize : DEFAULT_CHUNK_SIZE;
+        Preconditions.checkArgument(this.chunkSize > 0 && this.chunkSize <= 1024, "Chunk size must be between 1 and 1024");
+        int max = maxChunks != null ? maxChunks : DEFAULT_MAX_CHUNKS;
+        Preconditions.checkArgument(max > 0 && max <= 1 << 26, "Maximum chunk count must be between 1 and 2^26");
+        int sets = max <= WAYS ? 1 : Integer.highestOneBit((max - 1) / WAYS) << 1;
+        this.maxChunks = sets * WAYS;
+
+        this.slots = new AtomicReferenceArray<>(this.maxChunks);
+        this.hands = new int[sets];
+        this.setShift = 32 - Integer.numberOfTrailingZeros(sets);
+    }
+
+    static class Deserializer implements JsonDeserializer<CachedProjectionTransform> {
+        public CachedProjectionTransform deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new CachedProjectionTransform(
+                    JsonUtils.getProjectionDelegate(jsonObject, context),
+                    JsonUtils.getNullableInteger(jsonObject, "chunkSize"),
+                    JsonUtils.getNullableInteger(jsonObject, "maxChunks")
+            );
+        }
+    }
+
+    /**
+     * @return the number of conversions which were answered from the cache
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of conversions which required computing a chunk
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of chunks which were evicted from the cache to make room for another one
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Discards all cached chunks. The counters are not reset.
+     */
+    public void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, null);
+        }
+    }
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        return super.delegate.fromGeo(longitude, latitude);
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (!(x == (int) x && y == (int) y)) { //not a block position, or out of int range
+            return super.delegate.toGeo(x, y, dst, off);
+        }
+
+        int chunkX = Math.floorDiv((int) x, this.chunkSize);
+        int chunkY = Math.floorDiv((int) y, this.chunkSize);
+        int index = ((int) y - chunkY * this.chunkSize) * this.chunkSize + ((int) x - chunkX * this.chunkSize);
+
+        Chunk chunk = this.chunk(((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL), chunkX, chunkY);
+        if (!BatchUtils.isValid(chunk.valid, index)) {
+            return false;
+        }
+        dst[off] = chunk.values[2 * index];
+        dst[off + 1] = chunk.values[2 * index + 1];
+        return true;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        return super.delegate.fromGeo(longitude, latitude, dst, off);
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return super.delegate.fromGeoBatch(src, dst, off, count, valid);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        return super.delegate.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+    }
+
+    private Chunk chunk(long key, int chunkX, int chunkY) {
+        int set = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32 >>> this.setShift);
+        int base = set * WAYS;
+        for (int i = base, end = base + WAYS; i < end; i++) {
+            Chunk chunk = this.slots.get(i);
+            if (chunk != null && chunk.key == key) {
+                if (!chunk.referenced) { //avoid writing to shared memory on every hit
+                    chunk.referenced = true;
+                }
+                this.hits.increment();
+                return chunk;
+            }
+        }
+
+        this.misses.increment();
+        Chunk chunk = new Chunk(key, this.chunkSize);
+        super.delegate.toGeoGrid((double) chunkX * this.chunkSize, (double) chunkY * this.chunkSize, 1.0d, 1.0d,
+                this.chunkSize, this.chunkSize, chunk.values, 0, chunk.valid);
+        return this.insert(set, chunk);
+    }
+
+    /**
+     * Inserts a chunk in a set, evicting one of the set's chunks if it is full.
+     *
+     * @return the chunk, or the copy of it which another thread inserted while it was being computed
+     */
+    private Chunk insert(int set, Chunk chunk) {
+        int base = set * WAYS;
+        for (int i = base, end = base + WAYS; i < end; i++) {
+            Chunk current = this.slots.get(i);
+            if (current != null && current.key == chunk.key) {
+                return current;
+            }
+        }
+
+        int hand = this.hands[set];
+        //every referenced chunk is given a second chance, so a victim is always found within two turns
+        for (int i = 0; i < 2 * WAYS; i++, hand = (hand + 1) & (WAYS - 1)) {
+            Chunk current = this.slots.get(base + hand);
+            if (current != null && current.key == chunk.key) {
+                return current;
+            } else if (current == null) {
+                if (this.slots.compareAndSet(base + hand, null, chunk)) {
+                    break;
+                }
+            } else if (current.referenced) {
+                current.referenced = false;
+            } else if (this.slots.compareAndSet(base + hand, current, chunk)) {
+                this.evictions.increment();
+                break;
+            }
+        }
+        //if another thread kept changing the set, give up on caching the chunk
+        this.hands[set] = (hand + 1) & (WAYS - 1);
+        return chunk;
+    }
+
+    @Override
+    public String toString() {
+        return "Cached (" + super.delegate + ") by " + this.chunkSize + "x" + this.chunkSize + " chunks";
+    }
+
+    private static final class Chunk {
+        private final long key;
+        private final double[] values;
+        private final long[] valid;
+
+        /**
+         * Whether or not this chunk was used since the CLOCK hand last passed it
+         */
+        private boolean referenced;
+
+        Chunk(long key, int size) {
+            this.key = key;
+            this.values = new double[2 * size * size];
+            this.valid = BatchUtils.newMask(size * size);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.google.gson.annotations.JsonAdapter;
 import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
 import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.util.BatchUtils;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -70,6 +71,93 @@ public class ClampProjectionTransform extends ProjectionTransform {
         return pos;
     }
 
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY) {
+            return false;
+        }
+        return super.delegate.toGeo(x, y, dst, off);
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (!super.delegate.fromGeo(longitude, latitude, dst, off)) {
+            return false;
+        }
+        double x = dst[off];
+        double y = dst[off + 1];
+        return !(x < this.minX || x > this.maxX || y < this.minY || y > this.maxY);
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        BatchUtils.checkBatch(src, dst, off, count, valid);
+
+        //remember which points are outside of the clamped area before the delegate overwrites them
+        long[] outside = BatchUtils.newMask(count);
+        boolean anyOutside = false;
+        for (int i = 0; i < count; i++) {
+            double x = src[2 * (off + i)];
+            double y = src[2 * (off + i) + 1];
+            if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY) {
+                BatchUtils.setValid(outside, i);
+                anyOutside = true;
+            }
+        }
+
+        int converted = super.delegate.toGeoBatch(src, dst, off, count, valid);
+        if (anyOutside) {
+            for (int i = 0; i < count; i++) {
+                if (BatchUtils.isValid(outside, i) && BatchUtils.isValid(valid, off + i)) {
+                    BatchUtils.setInvalid(dst, valid, off + i);
+                    converted--;
+                }
+            }
+        }
+        return converted;
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        return this.clampConverted(dst, off, count, valid, super.delegate.fromGeoBatch(src, dst, off, count, valid));
+    }
+
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        //coordinates are monotonic along rows and columns, so the whole grid is inside the clamped area if its corners are
+        double lastX = originX + (width - 1) * stepX;
+        double lastY = originY + (height - 1) * stepY;
+        if (Math.min(originX, lastX) >= this.minX && Math.max(originX, lastX) <= this.maxX
+            && Math.min(originY, lastY) >= this.minY && Math.max(originY, lastY) <= this.maxY) {
+            return super.delegate.toGeoGrid(originX, originY, stepX, stepY, width, height, dst, off, valid);
+        }
+
+        BatchUtils.checkGrid(dst, off, width, height, valid);
+        BatchUtils.fillGrid(dst, off, width, height, originX, stepX, 0.0d, originY, 0.0d, stepY);
+        return this.toGeoBatch(dst, dst, off, width * height, valid);
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        int converted = super.delegate.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+        return this.clampConverted(dst, off, width * height, valid, converted);
+    }
+
+    /**
+     * Invalidates the points converted by the delegate which are outside of the clamped area.
+     */
+    private int clampConverted(double[] dst, int off, int count, long[] valid, int converted) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double x = dst[2 * i];
+            double y = dst[2 * i + 1];
+            if ((x < this.minX || x > this.maxX || y < this.minY || y > this.maxY) && BatchUtils.isValid(valid, i)) {
+                BatchUtils.setInvalid(dst, valid, i);
+                converted--;
+            }
+        }
+        return converted;
+    }
+
     @Override
     public String toString() {
         return "Clamp (" + super.delegate + ") to " + Arrays.toString(this.bounds());
@@ -6,7 +6,6 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.annotations.JsonAdapter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -16,12 +15,12 @@ import java.lang.reflect.Type;
  * I.E. x' = -x and y' = y
  */
 @JsonAdapter(FlipHorizontalProjectionTransform.Deserializer.class)
-public class FlipHorizontalProjectionTransform extends ProjectionTransform {
+public class FlipHorizontalProjectionTransform extends AffineProjectionTransform {
     /**
      * @param delegate - projection to transform
      */
     public FlipHorizontalProjectionTransform(GeographicProjection delegate) {
-        super(delegate);
+        super(delegate, new double[]{ -1, 0, 0, 0, 1, 0 }, new double[]{ -1, 0, 0, 0, 1, 0 });
     }
 
     static class Deserializer implements JsonDeserializer<FlipHorizontalProjectionTransform> {
@@ -30,18 +29,6 @@ public class FlipHorizontalProjectionTransform extends ProjectionTransform {
         }
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return this.delegate.toGeo(-x, y);
-    }
-
-    @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        double[] p = this.delegate.fromGeo(longitude, latitude);
-        p[0] = -p[0];
-        return p;
-    }
-
     @Override
     public boolean upright() {
         return !this.delegate.upright();
@@ -6,7 +6,6 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.annotations.JsonAdapter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -16,12 +15,12 @@ import java.lang.reflect.Type;
  * I.E. x' = x and y' = -y
  */
 @JsonAdapter(FlipVerticalProjectionTransform.Deserializer.class)
-public class FlipVerticalProjectionTransform extends ProjectionTransform {
+public class FlipVerticalProjectionTransform extends AffineProjectionTransform {
     /**
      * @param delegate - projection to transform
      */
     public FlipVerticalProjectionTransform(GeographicProjection delegate) {
-        super(delegate);
+        super(delegate, new double[]{ 1, 0, 0, 0, -1, 0 }, new double[]{ 1, 0, 0, 0, -1, 0 });
     }
 
     static class Deserializer implements JsonDeserializer<FlipVerticalProjectionTransform> {
@@ -30,18 +29,6 @@ public class FlipVerticalProjectionTransform extends ProjectionTransform {
         }
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return this.delegate.toGeo(x, -y);
-    }
-
-    @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        double[] p = this.delegate.fromGeo(longitude, latitude);
-        p[1] = -p[1];
-        return p;
-    }
-
     @Override
     public boolean upright() {
         return !this.delegate.upright();
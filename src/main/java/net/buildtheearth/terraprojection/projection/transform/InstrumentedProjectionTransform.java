@@ -0,0 +1,192 @@
+package net.buildtheearth.terraprojection.projection.transform;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import lombok.Getter;
+import lombok.NonNull;
+import net.buildtheearth.terraprojection.metrics.ProjectionMetrics;
+import net.buildtheearth.terraprojection.metrics.ProjectionMetricsRegistry;
+import net.buildtheearth.terraprojection.projection.EqualEarthProjection;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
+import net.buildtheearth.terraprojection.projection.compiler.CompiledProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.ConformalDynmaxionProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.DymaxionProjection;
+import net.buildtheearth.terraprojection.util.JsonUtils;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records metrics about the calls made to the warped projection, in the {@link ProjectionMetrics} of a given name, which are exposed over JMX by
+ * {@link ProjectionMetricsRegistry}. This is opt-in: the projection must be wrapped in this transform, e.g. in its JSON configuration.
+ * <p>
+ * Every call is counted, along with the points which are out of bounds. Timing a call costs about as much as the fastest projections, so only one
+ * in {@code latencySampling} single-point calls, picked at random, is timed. This adds about 20 nanoseconds to each call, which is a few percent
+ * of what the BTE projection costs. Batch and grid calls are always
+ * timed, and their sizes recorded. If the warped projection is cached by a {@link CachedProjectionTransform}, the cache's hit rate is included in
+ * the metrics.
+ */
+@JsonAdapter(InstrumentedProjectionTransform.Deserializer.class)
+public class InstrumentedProjectionTransform extends ProjectionTransform {
+    public static final int DEFAULT_LATENCY_SAMPLING = 16;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int latencySampling;
+
+    @Getter
+    private transient final ProjectionMetrics metrics;
+
+    /**
+     * @param delegate        - projection to instrument
+     * @param name            - the name of the metrics to record into, e.g. the name of the world the projection is used in. Projections
+     *                        instrumented with the same name share their metrics
+     * @param latencySampling - how many single-point calls there are for each timed one on average, rounded up to a power of two. Defaults to
+     *                        {@value #DEFAULT_LATENCY_SAMPLING}
+     */
+    public InstrumentedProjectionTransform(GeographicProjection delegate, @NonNull String name, Integer latencySampling) {
+        super(delegate);
+        this.name = name;
+        int sampling = latencySampling != null ? latencySampling : DEFAULT_LATENCY_SAMPLING;
+        Preconditions.checkArgument(sampling > 0 && sampling <= 1 << 30, "Latency sampling must be between 1 and 2^30");
+        this.latencySampling = sampling == 1 ? 1 : Integer.highestOneBit(sampling - 1) << 1;
+
+        this.metrics = ProjectionMetricsRegistry.get(name);
+        GeographicProjection projection = delegate;
+        boolean cacheFound = false;
+        while (true) {
+            if (projection instanceof ProjectionTransform) {
+                if (!cacheFound && projection instanceof CachedProjectionTransform) {
+                    this.metrics.addCache((CachedProjectionTransform) projection);
+                    cacheFound = true;
+                }
+                projection = ((ProjectionTransform) projection).getDelegate();
+            } else if (projection instanceof CompiledProjection) {
+                projection = ((CompiledProjection) projection).getSource();
+            } else {
+                break;
+            }
+        }
+        enableIterationHistograms(projection);
+    }
+
+    /**
+     * Solvers only record their iterations once they are instrumented, so that other projections don't pay for it.
+     */
+    private static void enableIterationHistograms(GeographicProjection projection) {
+        if (projection instanceof ConformalDynmaxionProjection) {
+            ((ConformalDynmaxionProjection) projection).getFromGeoIterations().setEnabled(true);
+        }
+        if (projection instanceof DymaxionProjection) {
+            ((DymaxionProjection) projection).getToGeoIterations().setEnabled(true);
+        } else if (projection instanceof EqualEarthProjection) {
+            ((EqualEarthProjection) projection).getToGeoIterations().setEnabled(true);
+        }
+    }
+
+    static class Deserializer implements JsonDeserializer<InstrumentedProjectionTransform> {
+        public InstrumentedProjectionTransform deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+            return new InstrumentedProjectionTransform(
+                    JsonUtils.getProjectionDelegate(jsonObject, context),
+                    JsonUtils.getString(jsonObject, "name"),
+                    JsonUtils.getNullableInteger(jsonObject, "latencySampling")
+            );
+        }
+    }
+
+    /**
+     * @return whether or not to time the current call
+     */
+    private boolean sampled() {
+        return (ThreadLocalRandom.current().nextInt() & (this.latencySampling - 1)) == 0;
+    }
+
+    @Override
+    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
+        double[] geo = new double[2];
+        if (!this.toGeo(x, y, geo, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return geo;
+    }
+
+    @Override
+    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
+        double[] pos = new double[2];
+        if (!this.fromGeo(longitude, latitude, pos, 0)) {
+            throw OutOfProjectionBoundsException.get();
+        }
+        return pos;
+    }
+
+    @Override
+    public boolean toGeo(double x, double y, double[] dst, int off) {
+        if (!this.sampled()) {
+            boolean converted = super.delegate.toGeo(x, y, dst, off);
+            this.metrics.recordToGeo(converted);
+            return converted;
+        }
+
+        long start = System.nanoTime();
+        boolean converted = super.delegate.toGeo(x, y, dst, off);
+        this.metrics.getToGeoLatency().record(System.nanoTime() - start);
+        this.metrics.recordToGeo(converted);
+        return converted;
+    }
+
+    @Override
+    public boolean fromGeo(double longitude, double latitude, double[] dst, int off) {
+        if (!this.sampled()) {
+            boolean converted = super.delegate.fromGeo(longitude, latitude, dst, off);
+            this.metrics.recordFromGeo(converted);
+            return converted;
+        }
+
+        long start = System.nanoTime();
+        boolean converted = super.delegate.fromGeo(longitude, latitude, dst, off);
+        this.metrics.getFromGeoLatency().record(System.nanoTime() - start);
+        this.metrics.recordFromGeo(converted);
+        return converted;
+    }
+
+    @Override
+    public int toGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        long start = System.nanoTime();
+        int converted = super.delegate.toGeoBatch(src, dst, off, count, valid);
+        this.metrics.recordBatch(count, converted, System.nanoTime() - start);
+        return converted;
+    }
+
+    @Override
+    public int fromGeoBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        long start = System.nanoTime();
+        int converted = super.delegate.fromGeoBatch(src, dst, off, count, valid);
+        this.metrics.recordBatch(count, converted, System.nanoTime() - start);
+        return converted;
+    }
+
+    @Override
+    public int toGeoGrid(double originX, double originY, double stepX, double stepY, int width, int height, double[] dst, int off, long[] valid) {
+        long start = System.nanoTime();
+        int converted = super.delegate.toGeoGrid(originX, originY, stepX, stepY, width, height, dst, off, valid);
+        this.metrics.recordBatch(width * height, converted, System.nanoTime() - start);
+        return converted;
+    }
+
+    @Override
+    public int fromGeoGrid(double originLongitude, double originLatitude, double stepLongitude, double stepLatitude, int width, int height, double[] dst, int off, long[] valid) {
+        long start = System.nanoTime();
+        int converted = super.delegate.fromGeoGrid(originLongitude, originLatitude, stepLongitude, stepLatitude, width, height, dst, off, valid);
+        this.metrics.recordBatch(width * height, converted, System.nanoTime() - start);
+        return converted;
+    }
+
+    @Override
+    public String toString() {
+        return "Instrumented (" + super.delegate + ") as " + this.name;
+    }
+}
@@ -5,7 +5,6 @@ import com.google.gson.*;
 import com.google.gson.annotations.JsonAdapter;
 import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -16,7 +15,7 @@ import java.lang.reflect.Type;
  */
 @Getter
 @JsonAdapter(OffsetProjectionTransform.Deserializer.class)
-public class OffsetProjectionTransform extends ProjectionTransform {
+public class OffsetProjectionTransform extends AffineProjectionTransform {
     private final double dx;
     private final double dy;
 
@@ -26,7 +25,7 @@ public class OffsetProjectionTransform extends ProjectionTransform {
      * @param dy       - how much to move along the Y axis
      */
     public OffsetProjectionTransform(GeographicProjection delegate, double dx, double dy) {
-        super(delegate);
+        super(delegate, new double[]{ 1, 0, dx, 0, 1, dy }, new double[]{ 1, 0, -dx, 0, 1, -dy });
         Preconditions.checkArgument(Double.isFinite(dx) && Double.isFinite(dy), "Projection offsets have to be finite doubles");
         this.dx = dx;
         this.dy = dy;
@@ -53,19 +52,6 @@ public class OffsetProjectionTransform extends ProjectionTransform {
         return b;
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return this.delegate.toGeo(x - this.dx, y - this.dy);
-    }
-
-    @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        double[] pos = this.delegate.fromGeo(longitude, latitude);
-        pos[0] += this.dx;
-        pos[1] += this.dy;
-        return pos;
-    }
-
     @Override
     public String toString() {
         return "Offset (" + super.delegate + ") by " + this.dx + ", " + this.dy;
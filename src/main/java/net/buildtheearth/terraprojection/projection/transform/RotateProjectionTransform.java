@@ -5,7 +5,6 @@ import com.google.gson.*;
 import com.google.gson.annotations.JsonAdapter;
 import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -16,28 +15,30 @@ import static java.lang.Math.*;
  * @author DaPorkchop_
  */
 @JsonAdapter(RotateProjectionTransform.Deserializer.class)
-public class RotateProjectionTransform extends ProjectionTransform {
+public class RotateProjectionTransform extends AffineProjectionTransform {
     @Getter
     private final double by;
 
     private transient final double sin;
     private transient final double cos;
-    private transient final double sinBackwards;
-    private transient final double cosBackwards;
 
     /**
      * @param delegate - Input projection
      * @param by       - how much to rotate the projection by
      */
     public RotateProjectionTransform(GeographicProjection delegate, double by) {
-        super(delegate);
+        super(delegate, rotation(-by), rotation(by));
         Preconditions.checkArgument(Double.isFinite(by), "Projection rotation must be a finite double");
         this.by = by;
 
         this.sin = Math.sin(toRadians(by));
         this.cos = Math.cos(toRadians(by));
-        this.sinBackwards = Math.sin(toRadians(-by));
-        this.cosBackwards = Math.cos(toRadians(-by));
+    }
+
+    private static double[] rotation(double degrees) {
+        double sin = Math.sin(toRadians(degrees));
+        double cos = Math.cos(toRadians(degrees));
+        return new double[]{ cos, -sin, 0, sin, cos, 0 };
     }
 
     static class Deserializer implements JsonDeserializer<RotateProjectionTransform> {
@@ -72,23 +73,6 @@ public class RotateProjectionTransform extends ProjectionTransform {
         };
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return super.delegate.toGeo(
-                x * this.cos - y * this.sin,
-                x * this.sin + y * this.cos
-        );
-    }
-
-    @Override
-    public double[] fromGeo(double longitude, double latitude) throws OutOfProjectionBoundsException {
-        double[] pos = super.delegate.fromGeo(longitude, latitude);
-        return new double[] {
-                pos[0] * this.cosBackwards - pos[1] * this.sinBackwards,
-                pos[0] * this.sinBackwards + pos[1] * this.cosBackwards,
-        };
-    }
-
     @Override
     public String toString() {
         return "Rotate (" + super.delegate + ") by " + this.by + " degrees";
@@ -5,7 +5,6 @@ import com.google.gson.*;
 import com.google.gson.annotations.JsonAdapter;
 import lombok.Getter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -16,7 +15,7 @@ import java.lang.reflect.Type;
  */
 @Getter
 @JsonAdapter(ScaleProjectionTransform.Deserializer.class)
-public class ScaleProjectionTransform extends ProjectionTransform {
+public class ScaleProjectionTransform extends AffineProjectionTransform {
     private final double x;
     private final double y;
 
@@ -28,7 +27,7 @@ public class ScaleProjectionTransform extends ProjectionTransform {
      * @param y        - scaling to apply along the y axis
      */
     public ScaleProjectionTransform(GeographicProjection delegate, double x, double y) {
-        super(delegate);
+        super(delegate, new double[]{ x, 0, 0, 0, y, 0 }, new double[]{ 1 / x, 0, 0, 0, 1 / y, 0 });
         Preconditions.checkArgument(Double.isFinite(x) && Double.isFinite(y), "Projection scales should be finite");
         Preconditions.checkArgument(x != 0 && y != 0, "Projection scale cannot be 0!");
         this.x = x;
@@ -46,19 +45,6 @@ public class ScaleProjectionTransform extends ProjectionTransform {
         }
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return this.delegate.toGeo(x / this.x, y / this.y);
-    }
-
-    @Override
-    public double[] fromGeo(double lon, double lat) throws OutOfProjectionBoundsException {
-        double[] p = this.delegate.fromGeo(lon, lat);
-        p[0] *= this.x;
-        p[1] *= this.y;
-        return p;
-    }
-
     @Override
     public boolean upright() {
         return (this.y < 0) ^ this.delegate.upright();
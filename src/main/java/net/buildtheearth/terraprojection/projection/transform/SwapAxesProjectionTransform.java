@@ -6,7 +6,6 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.annotations.JsonAdapter;
 import net.buildtheearth.terraprojection.projection.GeographicProjection;
-import net.buildtheearth.terraprojection.projection.OutOfProjectionBoundsException;
 import net.buildtheearth.terraprojection.util.JsonUtils;
 
 import java.lang.reflect.Type;
@@ -15,13 +14,13 @@ import java.lang.reflect.Type;
  * Inverses the warped projection such that x becomes y and y becomes x.
  */
 @JsonAdapter(SwapAxesProjectionTransform.Deserializer.class)
-public class SwapAxesProjectionTransform extends ProjectionTransform {
+public class SwapAxesProjectionTransform extends AffineProjectionTransform {
 
     /**
      * @param delegate - projection to transform
      */
     public SwapAxesProjectionTransform(GeographicProjection delegate) {
-        super(delegate);
+        super(delegate, new double[]{ 0, 1, 0, 1, 0, 0 }, new double[]{ 0, 1, 0, 1, 0, 0 });
     }
 
     static class Deserializer implements JsonDeserializer<SwapAxesProjectionTransform> {
@@ -30,20 +29,6 @@ public class SwapAxesProjectionTransform extends ProjectionTransform {
         }
     }
 
-    @Override
-    public double[] toGeo(double x, double y) throws OutOfProjectionBoundsException {
-        return this.delegate.toGeo(y, x);
-    }
-
-    @Override
-    public double[] fromGeo(double lon, double lat) throws OutOfProjectionBoundsException {
-        double[] p = this.delegate.fromGeo(lon, lat);
-        double t = p[0];
-        p[0] = p[1];
-        p[1] = t;
-        return p;
-    }
-
     @Override
     public double[] bounds() {
         double[] b = this.delegate.bounds();
@@ -0,0 +1,93 @@
+package net.buildtheearth.terraprojection.util;
+
+/**
+ * Arithmetic kernels shared by the batch methods of the closed-form projections and of the affine transforms.
+ * <p>
+ * All kernels work on interleaved coordinates, in the same way as the batch projection methods (see {@link BatchUtils}),
+ * and allow {@code src} and {@code dst} to be the same array. They do not check their arguments.
+ * <p>
+ * When running on Java 17 or newer with the {@code jdk.incubator.vector} module enabled (using {@code --add-modules jdk.incubator.vector}),
+ * {@link #INSTANCE} is implemented with the Vector API. Otherwise, or if the system property {@code terraprojection.vectorKernels} is set to {@code false},
+ * plain scalar loops are used.
+ */
+public abstract class BatchKernels {
+    private static final boolean VECTOR = Boolean.parseBoolean(System.getProperty("terraprojection.vectorKernels", "true"));
+
+    /**
+     * The best implementation available on the current JVM.
+     */
+    public static final BatchKernels INSTANCE = load();
+
+    private static BatchKernels load() {
+        if (VECTOR) {
+            try {
+                //only present in the java 17 part of the multi-release jar
+                return (BatchKernels) Class.forName("net.buildtheearth.terraprojection.util.VectorBatchKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                //fall back to the scalar kernels
+            }
+        }
+        return new ScalarBatchKernels();
+    }
+
+    /**
+     * Applies the affine transformation {@code x' = m00 * x + m01 * y + m02, y' = m10 * x + m11 * y + m12} to each point.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public abstract void affine(double[] src, double[] dst, int off, int count, double m00, double m01, double m02, double m10, double m11, double m12);
+
+    /**
+     * Marks each point as valid if it is within the given bounds, and as invalid otherwise. Points containing {@link Double#NaN} are considered valid.
+     *
+     * @param src   - coordinates to check
+     * @param off   - index of the first point
+     * @param count - number of points
+     * @param valid - validity bitmap
+     * @return the number of points which are within the bounds
+     */
+    public abstract int checkRange(double[] src, int off, int count, long[] valid, double minX, double minY, double maxX, double maxY);
+
+    /**
+     * Computes {@code x' = x / cos(y), y' = y} for each point, with {@code y} in degrees.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public abstract void sinusoidalToGeo(double[] src, double[] dst, int off, int count);
+
+    /**
+     * Computes {@code x' = x * cos(y), y' = y} for each point, with {@code y} in degrees.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public abstract void sinusoidalFromGeo(double[] src, double[] dst, int off, int count);
+
+    /**
+     * Computes {@code x' = ax * x + bx, y' = degrees(2 * atan(exp(ay * y + by)) - pi / 2)} for each point.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public abstract void mercatorToGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by);
+
+    /**
+     * Computes {@code x' = ax * x + bx, y' = ay * ln(tan(pi / 4 + radians(y) / 2)) + by} for each point.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public abstract void mercatorFromGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by);
+}
@@ -0,0 +1,151 @@
+package net.buildtheearth.terraprojection.util;
+
+import com.google.common.base.Preconditions;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Helpers for the batch projection methods, which work on interleaved coordinate arrays and report out-of-bounds points
+ * through a validity bitmap rather than by throwing.
+ * <p>
+ * The i-th point of a batch is stored at indices {@code 2 * i} and {@code 2 * i + 1} of its array,
+ * and its validity is bit {@code i & 63} of {@code valid[i >>> 6]}.
+ */
+@UtilityClass
+public class BatchUtils {
+
+    /**
+     * Allocates a validity bitmap large enough for the given number of points.
+     *
+     * @param count - the number of points
+     * @return a new, cleared bitmap
+     */
+    public static long[] newMask(int count) {
+        return new long[(count + 63) >>> 6];
+    }
+
+    /**
+     * @param valid - validity bitmap
+     * @param i     - index of the point
+     * @return whether or not the given point is marked as valid
+     */
+    public static boolean isValid(long[] valid, int i) {
+        return (valid[i >>> 6] & (1L << i)) != 0L;
+    }
+
+    /**
+     * Marks the given point as valid.
+     *
+     * @param valid - validity bitmap
+     * @param i     - index of the point
+     */
+    public static void setValid(long[] valid, int i) {
+        valid[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Marks all the points in the given range as valid.
+     *
+     * @param valid - validity bitmap
+     * @param off   - index of the first point
+     * @param count - number of points
+     */
+    public static void setValid(long[] valid, int off, int count) {
+        for (int i = off, end = off + count; i < end; i++) {
+            valid[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * Marks the given point as invalid, without touching its coordinates.
+     *
+     * @param valid - validity bitmap
+     * @param i     - index of the point
+     */
+    public static void clearValid(long[] valid, int i) {
+        valid[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * Marks the given point as invalid, and fills its coordinates with {@link Double#NaN}.
+     *
+     * @param dst   - destination coordinates
+     * @param valid - validity bitmap
+     * @param i     - index of the point
+     */
+    public static void setInvalid(double[] dst, long[] valid, int i) {
+        dst[2 * i] = Double.NaN;
+        dst[2 * i + 1] = Double.NaN;
+        valid[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * Fills the coordinates of all the points in the given range which are not marked as valid with {@link Double#NaN}.
+     *
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     * @param valid - validity bitmap
+     */
+    public static void fillInvalid(double[] dst, int off, int count, long[] valid) {
+        for (int i = off, end = off + count; i < end; i++) {
+            if (!isValid(valid, i)) {
+                dst[2 * i] = Double.NaN;
+                dst[2 * i + 1] = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Fills a range of points with the coordinates of a grid, row by row.
+     * <p>
+     * The point in column {@code i} and row {@code j} is stored at index {@code off + j * width + i}, and is set to
+     * {@code {x + i * xStepI + j * xStepJ, y + i * yStepI + j * yStepJ}}.
+     *
+     * @param dst    - destination coordinates
+     * @param off    - index of the first point
+     * @param width  - number of columns
+     * @param height - number of rows
+     */
+    public static void fillGrid(double[] dst, int off, int width, int height, double x, double xStepI, double xStepJ, double y, double yStepI, double yStepJ) {
+        for (int j = 0, k = 2 * off; j < height; j++) {
+            double rowX = x + j * xStepJ;
+            double rowY = y + j * yStepJ;
+            for (int i = 0; i < width; i++, k += 2) {
+                dst[k] = rowX + i * xStepI;
+                dst[k + 1] = rowY + i * yStepI;
+            }
+        }
+    }
+
+    /**
+     * Checks that the arguments given to a grid projection method are consistent.
+     *
+     * @param dst    - destination coordinates
+     * @param off    - index of the first point
+     * @param width  - number of columns
+     * @param height - number of rows
+     * @param valid  - validity bitmap
+     */
+    public static void checkGrid(double[] dst, int off, int width, int height, long[] valid) {
+        Preconditions.checkArgument(off >= 0 && width >= 0 && height >= 0, "Grid offset and size cannot be negative");
+        Preconditions.checkArgument((long) width * height <= Integer.MAX_VALUE >> 1, "Grid is too large");
+        Preconditions.checkPositionIndex(2 * (off + width * height), dst.length, "Destination array is too small");
+        Preconditions.checkPositionIndex(off + width * height, valid.length << 6, "Validity bitmap is too small");
+    }
+
+    /**
+     * Checks that the arguments given to a batch projection method are consistent.
+     *
+     * @param src   - source coordinates
+     * @param dst   - destination coordinates
+     * @param off   - index of the first point
+     * @param count - number of points
+     * @param valid - validity bitmap
+     */
+    public static void checkBatch(double[] src, double[] dst, int off, int count, long[] valid) {
+        Preconditions.checkArgument(off >= 0 && count >= 0, "Batch offset and count cannot be negative");
+        Preconditions.checkPositionIndex(2 * (off + count), src.length, "Source array is too small");
+        Preconditions.checkPositionIndex(2 * (off + count), dst.length, "Destination array is too small");
+        Preconditions.checkPositionIndex(off + count, valid.length << 6, "Validity bitmap is too small");
+    }
+}
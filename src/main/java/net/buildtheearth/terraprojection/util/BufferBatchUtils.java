@@ -0,0 +1,159 @@
+package net.buildtheearth.terraprojection.util;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import net.buildtheearth.terraprojection.projection.GeographicProjection;
+import net.daporkchop.lib.common.reference.ReferenceStrength;
+import net.daporkchop.lib.common.reference.cache.Cached;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Batch projection entry points for coordinates stored in {@link DoubleBuffer}s and {@link ByteBuf}s, such as packet payloads.
+ * <p>
+ * Points are interleaved the same way as with {@link GeographicProjection#toGeoBatch(double[], double[], int, int, long[])},
+ * and the i-th point of a call is reported at bit i of the validity bitmap (see {@link BatchUtils}).
+ * Buffers are accessed using absolute indices, so their positions and reader/writer indices are left untouched.
+ * <p>
+ * Coordinates are converted in small chunks through a per-thread scratch array, so direct and pooled buffers can be processed
+ * without ever being copied to the heap as a whole, and without allocating.
+ * The source and the destination may be the same buffer, as long as the source and destination indices are equal too.
+ */
+@UtilityClass
+public class BufferBatchUtils {
+    /**
+     * The number of points converted at once. This is a multiple of 64, so that each chunk fills whole words of the validity bitmap.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private static final Cached<double[]> COORDS_CACHE = Cached.threadLocal(() -> new double[CHUNK_SIZE << 1], ReferenceStrength.SOFT);
+    private static final Cached<long[]> VALID_CACHE = Cached.threadLocal(() -> BatchUtils.newMask(CHUNK_SIZE), ReferenceStrength.SOFT);
+
+    /**
+     * Converts a batch of map coordinates stored in a {@link DoubleBuffer} to geographic coordinates.
+     *
+     * @param projection - the projection to use
+     * @param src        - buffer containing the {x, y} map coordinates
+     * @param srcIndex   - index of the first value to read in {@code src}
+     * @param dst        - buffer to write the {longitude, latitude} results to
+     * @param dstIndex   - index of the first value to write in {@code dst}
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public static int toGeoBatch(@NonNull GeographicProjection projection, @NonNull DoubleBuffer src, int srcIndex, @NonNull DoubleBuffer dst, int dstIndex, int count, @NonNull long[] valid) {
+        return convert(projection, true, src, srcIndex, dst, dstIndex, count, valid);
+    }
+
+    /**
+     * Converts a batch of geographic coordinates stored in a {@link DoubleBuffer} to map coordinates.
+     *
+     * @param projection - the projection to use
+     * @param src        - buffer containing the {longitude, latitude} geographic coordinates
+     * @param srcIndex   - index of the first value to read in {@code src}
+     * @param dst        - buffer to write the {x, y} results to
+     * @param dstIndex   - index of the first value to write in {@code dst}
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public static int fromGeoBatch(@NonNull GeographicProjection projection, @NonNull DoubleBuffer src, int srcIndex, @NonNull DoubleBuffer dst, int dstIndex, int count, @NonNull long[] valid) {
+        return convert(projection, false, src, srcIndex, dst, dstIndex, count, valid);
+    }
+
+    /**
+     * Converts a batch of map coordinates stored as little-endian doubles in a {@link ByteBuf} to geographic coordinates.
+     *
+     * @param projection - the projection to use
+     * @param src        - buffer containing the {x, y} map coordinates
+     * @param srcIndex   - index of the first byte to read in {@code src}
+     * @param dst        - buffer to write the {longitude, latitude} results to
+     * @param dstIndex   - index of the first byte to write in {@code dst}
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public static int toGeoBatch(@NonNull GeographicProjection projection, @NonNull ByteBuf src, int srcIndex, @NonNull ByteBuf dst, int dstIndex, int count, @NonNull long[] valid) {
+        return convert(projection, true, src, srcIndex, dst, dstIndex, count, valid);
+    }
+
+    /**
+     * Converts a batch of geographic coordinates stored as little-endian doubles in a {@link ByteBuf} to map coordinates.
+     *
+     * @param projection - the projection to use
+     * @param src        - buffer containing the {longitude, latitude} geographic coordinates
+     * @param srcIndex   - index of the first byte to read in {@code src}
+     * @param dst        - buffer to write the {x, y} results to
+     * @param dstIndex   - index of the first byte to write in {@code dst}
+     * @param count      - number of points to convert
+     * @param valid      - bitmap to store the validity of each point in
+     * @return the number of points that could be converted
+     */
+    public static int fromGeoBatch(@NonNull GeographicProjection projection, @NonNull ByteBuf src, int srcIndex, @NonNull ByteBuf dst, int dstIndex, int count, @NonNull long[] valid) {
+        return convert(projection, false, src, srcIndex, dst, dstIndex, count, valid);
+    }
+
+    private static int convert(GeographicProjection projection, boolean toGeo, DoubleBuffer src, int srcIndex, DoubleBuffer dst, int dstIndex, int count, long[] valid) {
+        Preconditions.checkArgument(srcIndex >= 0 && dstIndex >= 0 && count >= 0, "Batch indices and count cannot be negative");
+        //compared without computing the end of the batch, which could overflow
+        Preconditions.checkArgument(srcIndex <= src.limit() && count <= (src.limit() - srcIndex) >> 1, "Source buffer is too small");
+        Preconditions.checkArgument(dstIndex <= dst.limit() && count <= (dst.limit() - dstIndex) >> 1, "Destination buffer is too small");
+        Preconditions.checkArgument(count <= (long) valid.length << 6, "Validity bitmap is too small");
+
+        double[] coords = COORDS_CACHE.get();
+        long[] chunkValid = VALID_CACHE.get();
+        int converted = 0;
+        for (int base = 0; base < count; base += CHUNK_SIZE) {
+            int n = Math.min(count - base, CHUNK_SIZE);
+            for (int i = 0, s = srcIndex + (base << 1); i < n << 1; i++) {
+                coords[i] = src.get(s + i);
+            }
+            converted += convertChunk(projection, toGeo, coords, n, chunkValid, valid, base);
+            for (int i = 0, d = dstIndex + (base << 1); i < n << 1; i++) {
+                dst.put(d + i, coords[i]);
+            }
+        }
+        return converted;
+    }
+
+    private static int convert(GeographicProjection projection, boolean toGeo, ByteBuf src, int srcIndex, ByteBuf dst, int dstIndex, int count, long[] valid) {
+        Preconditions.checkArgument(srcIndex >= 0 && dstIndex >= 0 && count >= 0, "Batch indices and count cannot be negative");
+        //compared without computing the end of the batch, which could overflow
+        Preconditions.checkArgument(srcIndex <= src.capacity() && count <= (src.capacity() - srcIndex) >> 4, "Source buffer is too small");
+        Preconditions.checkArgument(dstIndex <= dst.capacity() && count <= (dst.capacity() - dstIndex) >> 4, "Destination buffer is too small");
+        Preconditions.checkArgument(count <= (long) valid.length << 6, "Validity bitmap is too small");
+
+        double[] coords = COORDS_CACHE.get();
+        long[] chunkValid = VALID_CACHE.get();
+        int converted = 0;
+        for (int base = 0; base < count; base += CHUNK_SIZE) {
+            int n = Math.min(count - base, CHUNK_SIZE);
+            for (int i = 0, s = srcIndex + (base << 4); i < n << 1; i++) {
+                coords[i] = src.getDoubleLE(s + (i << 3));
+            }
+            converted += convertChunk(projection, toGeo, coords, n, chunkValid, valid, base);
+            for (int i = 0, d = dstIndex + (base << 4); i < n << 1; i++) {
+                dst.setDoubleLE(d + (i << 3), coords[i]);
+            }
+        }
+        return converted;
+    }
+
+    private static int convertChunk(GeographicProjection projection, boolean toGeo, double[] coords, int n, long[] chunkValid, long[] valid, int base) {
+        int converted = toGeo
+                ? projection.toGeoBatch(coords, coords, 0, n, chunkValid)
+                : projection.fromGeoBatch(coords, coords, 0, n, chunkValid);
+
+        //base is a multiple of 64, so the chunk's bitmap can be copied word by word. the last word is merged to leave bits past the end of the batch alone
+        int fullWords = n >>> 6;
+        System.arraycopy(chunkValid, 0, valid, base >>> 6, fullWords);
+        if ((n & 63) != 0) {
+            long mask = (1L << n) - 1L;
+            int word = (base >>> 6) + fullWords;
+            valid[word] = (valid[word] & ~mask) | (chunkValid[fullWords] & mask);
+        }
+        return converted;
+    }
+}
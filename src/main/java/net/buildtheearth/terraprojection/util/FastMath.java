@@ -0,0 +1,121 @@
+package net.buildtheearth.terraprojection.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Polynomial approximations of the trigonometric functions used by the projections' hot paths.
+ * <p>
+ * {@link Math#atan(double)} and {@link Math#atan2(double, double)} aren't compiled to intrinsics by HotSpot, and are several times slower than these.
+ * The functions which are, such as {@link Math#sqrt(double)}, {@link Math#sin(double)}, {@link Math#cos(double)}, {@link Math#log(double)} and
+ * {@link Math#exp(double)}, aren't approximated here, as they are already about as fast as a polynomial would be.
+ * <p>
+ * Each function documents the largest difference between its results and {@link Math}'s, in units in the last place (ulps) of the result. These bounds
+ * were measured over hundreds of millions of arguments, including the boundaries of every range reduction. {@link Math}'s functions are themselves
+ * within 1 ulp of the exact result. Unlike {@link Math}'s functions, these are
+ * not guaranteed to be monotonic, and don't always give the correctly rounded result for arguments where it is exactly representable. Special cases
+ * (infinities, NaNs, signed zeros) are handled as {@link Math} does.
+ */
+@UtilityClass
+public class FastMath {
+    private static final double PI_2 = Math.PI / 2;
+    private static final double PI_6 = Math.PI / 6;
+    private static final double TAN_PI_12 = 2 - MathUtils.ROOT3;
+
+    /**
+     * The coefficients of a polynomial {@code p} such that {@code atan(t) ~= t * p(t * t)} for {@code |t| <= tan(pi / 12)}
+     */
+    private static final double ATAN_0 = 1.0d;
+    private static final double ATAN_1 = -0.33333333333329285d;
+    private static final double ATAN_2 = 0.19999999997945478d;
+    private static final double ATAN_3 = -0.14285714014167328d;
+    private static final double ATAN_4 = 0.11111093584671891d;
+    private static final double ATAN_5 = -0.09090259156500705d;
+    private static final double ATAN_6 = 0.07677735990702125d;
+    private static final double ATAN_7 = -0.06470493401944863d;
+    private static final double ATAN_8 = 0.043976970018494106d;
+
+    /**
+     * The coefficients of a polynomial {@code p} such that {@code tan(h) ~= h * p(h * h)} for {@code |h| <= pi / 8}
+     */
+    private static final double TAN_0 = 1.0d;
+    private static final double TAN_1 = 0.33333333333320264d;
+    private static final double TAN_2 = 0.13333333335605033d;
+    private static final double TAN_3 = 0.05396825252726527d;
+    private static final double TAN_4 = 0.021869534859383213d;
+    private static final double TAN_5 = 0.008862386858641403d;
+    private static final double TAN_6 = 0.003601332221496288d;
+    private static final double TAN_7 = 0.0013977862530219446d;
+    private static final double TAN_8 = 7.831456369556025E-4d;
+
+    /**
+     * pi / 2 split in three parts, the first two of which have 33 significant bits, so that multiplying them by an integer smaller than
+     * {@code 2^19} is exact
+     */
+    private static final double PI_2_1 = 1.57079632673412561417e+00d;
+    private static final double PI_2_2 = 6.07710050630396597660e-11d;
+    private static final double PI_2_3 = 2.02226624879595063154e-21d;
+    private static final double TAN_MAX_QUADRANT = 1 << 19;
+
+    /**
+     * Approximates {@link Math#atan(double)} within 4 ulps.
+     */
+    public static double atan(double x) {
+        double a = Math.abs(x);
+        double r = a > 1 ? PI_2 - atanUnit(1 / a) : atanUnit(a);
+        return Math.copySign(r, x);
+    }
+
+    /**
+     * Approximates {@link Math#atan2(double, double)} within 4 ulps.
+     */
+    public static double atan2(double y, double x) {
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        boolean swap = ay > ax;
+        double t = swap ? ax / ay : ay / ax;
+        if (!(t <= 1)) { //both arguments are zero or infinite, or one of them is NaN
+            return Math.atan2(y, x);
+        }
+
+        double r = atanUnit(t);
+        if (swap) {
+            r = PI_2 - r;
+        }
+        if (x < 0) {
+            r = Math.PI - r;
+        }
+        return Math.copySign(r, y);
+    }
+
+    /**
+     * Approximates the arctangent of a number between 0 and 1.
+     */
+    private static double atanUnit(double t) {
+        double offset = 0;
+        if (t > TAN_PI_12) { //atan(t) = pi/6 + atan((t - tan(pi/6)) / (1 + t * tan(pi/6)))
+            t = (t * MathUtils.ROOT3 - 1) / (t + MathUtils.ROOT3);
+            offset = PI_6;
+        }
+        double s = t * t;
+        return offset + t * (ATAN_0 + s * (ATAN_1 + s * (ATAN_2 + s * (ATAN_3 + s * (ATAN_4 + s * (ATAN_5 + s * (ATAN_6 + s * (ATAN_7 + s * ATAN_8))))))));
+    }
+
+    /**
+     * Approximates {@link Math#tan(double)} within 8 ulps.
+     * <p>
+     * Arguments larger than {@code 2^19 * pi / 2} in magnitude are passed on to {@link Math#tan(double)}, as this can't reduce them accurately.
+     */
+    public static double tan(double x) {
+        double k = Math.rint(x * (2 / Math.PI));
+        if (!(Math.abs(k) < TAN_MAX_QUADRANT)) { //also catches infinities and NaN
+            return Math.tan(x);
+        }
+
+        //tan(x) = tan(r) if k is even, -1/tan(r) otherwise, and tan(r) = 2u / (1 - u^2) with u = tan(r/2)
+        double h = 0.5d * (x - k * PI_2_1 - k * PI_2_2 - k * PI_2_3);
+        double s = h * h;
+        double u = h * (TAN_0 + s * (TAN_1 + s * (TAN_2 + s * (TAN_3 + s * (TAN_4 + s * (TAN_5 + s * (TAN_6 + s * (TAN_7 + s * TAN_8))))))));
+        double uu = u * u;
+        return ((long) k & 1L) == 0L ? 2 * u / (1 - uu) : (uu - 1) / (2 * u);
+    }
+}
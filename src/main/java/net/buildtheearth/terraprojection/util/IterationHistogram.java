@@ -0,0 +1,126 @@
+package net.buildtheearth.terraprojection.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how many iterations an iterative solver needed, for each number of iterations up to a maximum.
+ * <p>
+ * Histograms are disabled until {@link #setEnabled(boolean)} is called, e.g. by
+ * {@link net.buildtheearth.terraprojection.projection.transform.InstrumentedProjectionTransform}, so that solvers which aren't monitored don't pay
+ * for updating shared counters on every call. Recording is lock-free, even when many threads use the same solver.
+ * Reading the counts while they are being updated gives a consistent value for each count, but not necessarily for the histogram as a whole.
+ */
+public final class IterationHistogram {
+    private final LongAdder[] counts;
+
+    private volatile boolean enabled;
+
+    /**
+     * @param maxIterations - the largest number of iterations to count separately. Larger numbers are counted as this one
+     */
+    public IterationHistogram(int maxIterations) {
+        Preconditions.checkArgument(maxIterations >= 0, "maxIterations must be positive (given: %s)", maxIterations);
+        this.counts = new LongAdder[maxIterations + 1];
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a solver run, if this histogram is enabled.
+     *
+     * @param iterations - the number of iterations it needed
+     */
+    public void record(int iterations) {
+        if (this.enabled) {
+            this.counts[Math.max(0, Math.min(iterations, this.counts.length - 1))].increment();
+        }
+    }
+
+    /**
+     * @return whether or not solver runs are recorded
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Starts or stops recording solver runs. The counts are kept either way.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the largest number of iterations counted separately
+     */
+    public int getMaxIterations() {
+        return this.counts.length - 1;
+    }
+
+    /**
+     * @return the number of runs which needed the given number of iterations
+     */
+    public long getCount(int iterations) {
+        return iterations >= 0 && iterations < this.counts.length ? this.counts[iterations].sum() : 0L;
+    }
+
+    /**
+     * @return the number of runs which were recorded
+     */
+    public long getTotal() {
+        long total = 0L;
+        for (LongAdder count : this.counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return the average number of iterations of the recorded runs, or {@link Double#NaN} if none were recorded
+     */
+    public double getMean() {
+        long total = 0L;
+        long iterations = 0L;
+        for (int i = 0; i < this.counts.length; i++) {
+            long count = this.counts[i].sum();
+            total += count;
+            iterations += count * i;
+        }
+        return (double) iterations / total;
+    }
+
+    /**
+     * @return the number of runs which needed each number of iterations, from 0 to {@link #getMaxIterations()}
+     */
+    public long[] toArray() {
+        long[] counts = new long[this.counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Resets all counts to zero.
+     */
+    public void reset() {
+        for (LongAdder count : this.counts) {
+            count.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < this.counts.length; i++) {
+            long count = this.counts[i].sum();
+            if (count != 0L) {
+                builder.append(builder.length() == 1 ? "" : ", ").append(i).append('=').append(count);
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
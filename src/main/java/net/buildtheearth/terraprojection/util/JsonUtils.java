@@ -11,7 +11,7 @@ public class JsonUtils {
 
     public Double getNullableDouble(JsonObject jsonObject, String name) {
         JsonElement element = jsonObject.get(name);
-        return element.isJsonNull() ? null : element.getAsDouble();
+        return element == null || element.isJsonNull() ? null : element.getAsDouble();
     }
 
     public double getDouble(JsonObject jsonObject, String name) {
@@ -20,7 +20,16 @@ public class JsonUtils {
 
     public Integer getNullableInteger(JsonObject jsonObject, String name) {
         JsonElement element = jsonObject.get(name);
-        return element.isJsonNull() ? null : element.getAsInt();
+        return element == null || element.isJsonNull() ? null : element.getAsInt();
+    }
+
+    public String getString(JsonObject jsonObject, String name) {
+        return jsonObject.get(name).getAsString();
+    }
+
+    public Boolean getNullableBoolean(JsonObject jsonObject, String name) {
+        JsonElement element = jsonObject.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsBoolean();
     }
 
     /**
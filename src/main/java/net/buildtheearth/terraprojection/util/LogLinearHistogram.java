@@ -0,0 +1,135 @@
+package net.buildtheearth.terraprojection.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts non-negative values, such as latencies in nanoseconds, in buckets whose width grows with the values, like an HDR histogram.
+ * <p>
+ * Values up to {@value #SUB_BUCKETS} are counted exactly, and every power of two above that is split into {@value #SUB_BUCKETS} buckets of equal
+ * width, so that the values reported by {@link #getValueAtPercentile(double)} are within about 3% of the recorded ones. Values larger than
+ * {@link #MAX_VALUE} are counted as {@link #MAX_VALUE}.
+ * <p>
+ * Like {@link IterationHistogram}, recording is lock-free and cheap enough to be done on every call, even when many threads record into the same
+ * histogram. Reading the histogram while it is being updated gives a consistent value for each bucket, but not necessarily for the histogram as a
+ * whole.
+ */
+public final class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest value which can be recorded, about 18 minutes in nanoseconds
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1L;
+
+    private final LongAdder[] counts = new LongAdder[bucket(MAX_VALUE) + 1];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public LogLinearHistogram() {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the index of the bucket a value is counted in
+     */
+    private static int bucket(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the smallest value counted in a bucket
+     */
+    private static long lowestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        return (long) (bucket - (shift << SUB_BUCKET_BITS)) << shift;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value - the value. Negative values are counted as 0
+     */
+    public void record(long value) {
+        value = Math.max(0L, Math.min(value, MAX_VALUE));
+        this.counts[bucket(value)].increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * @return the number of values which were recorded
+     */
+    public long getTotal() {
+        long total = 0L;
+        for (LongAdder count : this.counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return the average of the recorded values, or {@link Double#NaN} if none were recorded
+     */
+    public double getMean() {
+        return (double) this.sum.sum() / this.getTotal();
+    }
+
+    /**
+     * @return the largest recorded value, or 0 if none were recorded
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the value which a given percentage of the recorded values are smaller than or equal to.
+     *
+     * @param percentile - the percentage, between 0 and 100
+     * @return the largest value of the bucket the percentile falls in, which is at most {@link #getMax()}, or 0 if no values were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0.0d && percentile <= 100.0d, "percentile must be between 0 and 100 (given: %s)", percentile);
+        long[] counts = new long[this.counts.length];
+        long total = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i] = this.counts[i].sum();
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(percentile / 100.0d * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(lowestValue(i + 1) - 1L, this.getMax());
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Resets the histogram.
+     */
+    public void reset() {
+        for (LongAdder count : this.counts) {
+            count.reset();
+        }
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{total=%d, mean=%.1f, p50=%d, p99=%d, p99.9=%d, max=%d}", this.getTotal(), this.getMean(),
+                this.getValueAtPercentile(50.0d), this.getValueAtPercentile(99.0d), this.getValueAtPercentile(99.9d), this.getMax());
+    }
+}
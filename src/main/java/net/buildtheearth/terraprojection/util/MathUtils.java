@@ -123,6 +123,21 @@ public class MathUtils {
         return result;
     }
 
+    /**
+     * Computes the dot product of two vectors of the same dimension.
+     *
+     * @param a - the first vector as double array of length n
+     * @param b - the second vector as double array of length n
+     * @return the dot product of the vectors
+     */
+    public static double dot(double[] a, double[] b) {
+        double result = 0.0d;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
     /**
      * Converts all values in a double array from degrees to radians
      *
@@ -0,0 +1,73 @@
+package net.buildtheearth.terraprojection.util;
+
+/**
+ * Plain Java implementation of {@link BatchKernels}, used when the Vector API is not available.
+ */
+class ScalarBatchKernels extends BatchKernels {
+    static final double DEG_TO_RAD = Math.PI / 180.0d;
+    static final double RAD_TO_DEG = 180.0d / Math.PI;
+
+    @Override
+    public void affine(double[] src, double[] dst, int off, int count, double m00, double m01, double m02, double m10, double m11, double m12) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double x = src[2 * i];
+            double y = src[2 * i + 1];
+            dst[2 * i] = x * m00 + y * m01 + m02;
+            dst[2 * i + 1] = x * m10 + y * m11 + m12;
+        }
+    }
+
+    @Override
+    public int checkRange(double[] src, int off, int count, long[] valid, double minX, double minY, double maxX, double maxY) {
+        int inRange = 0;
+        for (int i = off, end = off + count; i < end; i++) {
+            double x = src[2 * i];
+            double y = src[2 * i + 1];
+            if (x < minX || y < minY || x > maxX || y > maxY) {
+                BatchUtils.clearValid(valid, i);
+            } else {
+                BatchUtils.setValid(valid, i);
+                inRange++;
+            }
+        }
+        return inRange;
+    }
+
+    @Override
+    public void sinusoidalToGeo(double[] src, double[] dst, int off, int count) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double y = src[2 * i + 1];
+            dst[2 * i] = src[2 * i] / Math.cos(y * DEG_TO_RAD);
+            dst[2 * i + 1] = y;
+        }
+    }
+
+    @Override
+    public void sinusoidalFromGeo(double[] src, double[] dst, int off, int count) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double y = src[2 * i + 1];
+            dst[2 * i] = src[2 * i] * Math.cos(y * DEG_TO_RAD);
+            dst[2 * i + 1] = y;
+        }
+    }
+
+    @Override
+    public void mercatorToGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double x = src[2 * i];
+            double y = src[2 * i + 1];
+            dst[2 * i] = x * ax + bx;
+            dst[2 * i + 1] = (Math.atan(Math.exp(y * ay + by)) * 2.0d - Math.PI / 2.0d) * RAD_TO_DEG;
+        }
+    }
+
+    @Override
+    public void mercatorFromGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by) {
+        for (int i = off, end = off + count; i < end; i++) {
+            double x = src[2 * i];
+            double y = src[2 * i + 1];
+            dst[2 * i] = x * ax + bx;
+            dst[2 * i + 1] = Math.log(Math.tan(y * (DEG_TO_RAD / 2.0d) + Math.PI / 4.0d)) * ay + by;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package net.buildtheearth.terraprojection.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of {@link BatchKernels} using the Vector API.
+ * <p>
+ * Each vector holds whole points, as even lanes contain x coordinates and odd lanes contain y coordinates.
+ * Points left over at the end of a batch are handled by the scalar loops.
+ */
+final class VectorBatchKernels extends ScalarBatchKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private static final VectorShuffle<Double> SWAP_PAIRS = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorShuffle<Double> BROADCAST_Y = VectorShuffle.fromOp(SPECIES, i -> i | 1);
+    private static final VectorMask<Double> X_LANES = VectorMask.fromLong(SPECIES, 0x5555555555555555L);
+
+    VectorBatchKernels() {
+        if (LANES < 2) {
+            throw new UnsupportedOperationException("vectors must hold at least one point");
+        }
+    }
+
+    private static DoubleVector pairs(double x, double y) {
+        return DoubleVector.broadcast(SPECIES, y).blend(x, X_LANES);
+    }
+
+    @Override
+    public void affine(double[] src, double[] dst, int off, int count, double m00, double m01, double m02, double m10, double m11, double m12) {
+        //{x', y'} = {x, y} * {m00, m11} + {y, x} * {m01, m10} + {m02, m12}
+        DoubleVector a = pairs(m00, m11);
+        DoubleVector b = pairs(m01, m10);
+        DoubleVector c = pairs(m02, m12);
+
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            v.mul(a).add(v.rearrange(SWAP_PAIRS).mul(b)).add(c).intoArray(dst, i);
+        }
+        super.affine(src, dst, i >> 1, off + count - (i >> 1), m00, m01, m02, m10, m11, m12);
+    }
+
+    @Override
+    public int checkRange(double[] src, int off, int count, long[] valid, double minX, double minY, double maxX, double maxY) {
+        DoubleVector min = pairs(minX, minY);
+        DoubleVector max = pairs(maxX, maxY);
+
+        int inRange = 0;
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            long outside = v.compare(VectorOperators.LT, min).or(v.compare(VectorOperators.GT, max)).toLong();
+            for (int lane = 0; lane < LANES; lane += 2) {
+                int point = (i + lane) >> 1;
+                if (((outside >>> lane) & 3L) != 0L) {
+                    BatchUtils.clearValid(valid, point);
+                } else {
+                    BatchUtils.setValid(valid, point);
+                    inRange++;
+                }
+            }
+        }
+        return inRange + super.checkRange(src, i >> 1, off + count - (i >> 1), valid, minX, minY, maxX, maxY);
+    }
+
+    @Override
+    public void sinusoidalToGeo(double[] src, double[] dst, int off, int count) {
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            DoubleVector cos = v.rearrange(BROADCAST_Y).mul(DEG_TO_RAD).lanewise(VectorOperators.COS);
+            v.blend(v.div(cos), X_LANES).intoArray(dst, i);
+        }
+        super.sinusoidalToGeo(src, dst, i >> 1, off + count - (i >> 1));
+    }
+
+    @Override
+    public void sinusoidalFromGeo(double[] src, double[] dst, int off, int count) {
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            DoubleVector cos = v.rearrange(BROADCAST_Y).mul(DEG_TO_RAD).lanewise(VectorOperators.COS);
+            v.blend(v.mul(cos), X_LANES).intoArray(dst, i);
+        }
+        super.sinusoidalFromGeo(src, dst, i >> 1, off + count - (i >> 1));
+    }
+
+    @Override
+    public void mercatorToGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by) {
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            DoubleVector lat = v.mul(ay).add(by).lanewise(VectorOperators.EXP).lanewise(VectorOperators.ATAN)
+                    .mul(2.0d).sub(Math.PI / 2.0d).mul(RAD_TO_DEG);
+            lat.blend(v.mul(ax).add(bx), X_LANES).intoArray(dst, i);
+        }
+        super.mercatorToGeo(src, dst, i >> 1, off + count - (i >> 1), ax, bx, ay, by);
+    }
+
+    @Override
+    public void mercatorFromGeo(double[] src, double[] dst, int off, int count, double ax, double bx, double ay, double by) {
+        int i = 2 * off;
+        for (int end = SPECIES.loopBound(2 * count) + i; i < end; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, src, i);
+            DoubleVector y = v.mul(DEG_TO_RAD / 2.0d).add(Math.PI / 4.0d).lanewise(VectorOperators.TAN).lanewise(VectorOperators.LOG)
+                    .mul(ay).add(by);
+            y.blend(v.mul(ax).add(bx), X_LANES).intoArray(dst, i);
+        }
+        super.mercatorFromGeo(src, dst, i >> 1, off + count - (i >> 1), ax, bx, ay, by);
+    }
+}
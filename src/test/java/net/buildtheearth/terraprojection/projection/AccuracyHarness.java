@@ -0,0 +1,188 @@
+package net.buildtheearth.terraprojection.projection;
+
+import net.buildtheearth.terraprojection.TerraProjectionConstants;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how accurate a projection is over a dense grid covering the whole globe, to make sure optimizations don't degrade it.
+ * <p>
+ * For every point of the grid, this measures the error of a round trip through {@link GeographicProjection#fromGeo(double, double, double[], int)} and
+ * {@link GeographicProjection#toGeo(double, double, double[], int)}. It can also measure how far both conversions are from those of a reference
+ * implementation, e.g. a copy of the projection from before it was optimized. All errors are distances in meters on the ground, and the grid's rows
+ * are swept in parallel.
+ */
+public final class AccuracyHarness {
+    private static final double METERS_PER_RADIAN = TerraProjectionConstants.EARTH_CIRCUMFERENCE / (2.0d * Math.PI);
+
+    private AccuracyHarness() {
+    }
+
+    /**
+     * Sweeps the globe with a projection.
+     *
+     * @param projection - the projection to measure
+     * @param reference  - the projection to compare it to, or {@code null} to only measure round trips
+     * @param step       - the distance between the grid's points, in degrees of longitude and latitude
+     * @return the errors and throughputs which were measured
+     */
+    public static Result measure(GeographicProjection projection, GeographicProjection reference, double step) {
+        int width = (int) Math.round(360.0d / step);
+        int height = (int) Math.round(180.0d / step);
+        double[] roundTrip = new double[width * height];
+        double[] referenceRoundTrip = new double[width * height];
+        double[] fromGeo = new double[width * height];
+        double[] toGeo = new double[width * height];
+        int[] mismatches = new int[height];
+
+        double throughput = throughput(projection, width, height, step);
+        double referenceThroughput = reference != null ? throughput(reference, width, height, step) : Double.NaN;
+
+        double metersPerUnit = projection.metersPerUnit();
+        IntStream.range(0, height).parallel().forEach(j -> {
+            double latitude = -90.0d + (j + 0.5d) * step;
+            double[] pos = new double[2];
+            double[] geo = new double[2];
+            double[] expected = new double[2];
+            for (int i = 0; i < width; i++) {
+                double longitude = -180.0d + (i + 0.5d) * step;
+                int index = j * width + i;
+                roundTrip[index] = referenceRoundTrip[index] = fromGeo[index] = toGeo[index] = Double.NaN;
+
+                boolean projected = projection.fromGeo(longitude, latitude, pos, 0);
+                if (projected && projection.toGeo(pos[0], pos[1], geo, 0)) {
+                    roundTrip[index] = distance(longitude, latitude, geo[0], geo[1]);
+                }
+                if (reference == null) {
+                    continue;
+                }
+
+                if (projected != reference.fromGeo(longitude, latitude, expected, 0)) {
+                    mismatches[j]++;
+                    continue;
+                } else if (!projected) {
+                    continue;
+                }
+                fromGeo[index] = Math.hypot(pos[0] - expected[0], pos[1] - expected[1]) * metersPerUnit;
+
+                double x = expected[0];
+                double y = expected[1];
+                if (reference.toGeo(x, y, geo, 0)) {
+                    referenceRoundTrip[index] = distance(longitude, latitude, geo[0], geo[1]);
+                }
+                boolean converted = projection.toGeo(x, y, geo, 0);
+                if (converted != reference.toGeo(x, y, expected, 0)) {
+                    mismatches[j]++;
+                } else if (converted) {
+                    toGeo[index] = distance(expected[0], expected[1], geo[0], geo[1]);
+                }
+            }
+        });
+
+        return new Result(projection.toString(), width * height, new ErrorStats(roundTrip), reference != null ? new ErrorStats(referenceRoundTrip) : null,
+                reference != null ? new ErrorStats(fromGeo) : null, reference != null ? new ErrorStats(toGeo) : null,
+                Arrays.stream(mismatches).sum(), throughput, referenceThroughput);
+    }
+
+    /**
+     * @return the number of points per second a projection converts back and forth over the grid
+     */
+    private static double throughput(GeographicProjection projection, int width, int height, double step) {
+        long start = System.nanoTime();
+        IntStream.range(0, height).parallel().forEach(j -> {
+            double latitude = -90.0d + (j + 0.5d) * step;
+            double[] pos = new double[2];
+            for (int i = 0; i < width; i++) {
+                if (projection.fromGeo(-180.0d + (i + 0.5d) * step, latitude, pos, 0)) {
+                    projection.toGeo(pos[0], pos[1], pos, 0);
+                }
+            }
+        });
+        return width * height / ((System.nanoTime() - start) / 1.0e9d);
+    }
+
+    /**
+     * @return the great-circle distance between two points, in meters
+     */
+    private static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+        return 2.0d * METERS_PER_RADIAN * Math.asin(Math.min(1.0d, Math.sqrt(a)));
+    }
+
+    /**
+     * The distribution of the errors measured over the grid. Points which couldn't be converted aren't counted.
+     */
+    public static final class ErrorStats {
+        public final int count;
+        public final double max;
+        public final double p99;
+
+        ErrorStats(double[] errors) {
+            double[] sorted = Arrays.stream(errors).filter(error -> !Double.isNaN(error)).sorted().toArray();
+            this.count = sorted.length;
+            this.max = sorted.length > 0 ? sorted[sorted.length - 1] : 0.0d;
+            this.p99 = sorted.length > 0 ? sorted[(int) Math.ceil(0.99d * sorted.length) - 1] : 0.0d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("max %.3em, p99 %.3em", this.max, this.p99);
+        }
+    }
+
+    public static final class Result {
+        public final String projection;
+        public final int points;
+        public final ErrorStats roundTrip;
+        /**
+         * The error of round trips through the reference, or {@code null} if there is no reference
+         */
+        public final ErrorStats referenceRoundTrip;
+        /**
+         * The distance between the points projected by the projection and by the reference, or {@code null} if there is no reference
+         */
+        public final ErrorStats fromGeo;
+        /**
+         * The distance between the points the projection and the reference convert the reference's projected points to, or {@code null} if there is
+         * no reference
+         */
+        public final ErrorStats toGeo;
+        /**
+         * The number of points which only one of the projection and the reference could convert
+         */
+        public final int mismatches;
+        /**
+         * The number of points per second which were converted back and forth
+         */
+        public final double throughput;
+        public final double referenceThroughput;
+
+        Result(String projection, int points, ErrorStats roundTrip, ErrorStats referenceRoundTrip, ErrorStats fromGeo, ErrorStats toGeo, int mismatches,
+               double throughput, double referenceThroughput) {
+            this.projection = projection;
+            this.points = points;
+            this.roundTrip = roundTrip;
+            this.referenceRoundTrip = referenceRoundTrip;
+            this.fromGeo = fromGeo;
+            this.toGeo = toGeo;
+            this.mismatches = mismatches;
+            this.throughput = throughput;
+            this.referenceThroughput = referenceThroughput;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(this.projection).append(": ").append(this.points).append(" points, round trip ").append(this.roundTrip)
+                    .append(String.format(", %.0f points/s", this.throughput));
+            if (this.fromGeo != null) {
+                builder.append(", fromGeo ").append(this.fromGeo).append(", toGeo ").append(this.toGeo).append(", ").append(this.mismatches)
+                        .append(" mismatches").append(", reference round trip ").append(this.referenceRoundTrip)
+                        .append(String.format(", reference %.0f points/s", this.referenceThroughput));
+            }
+            return builder.toString();
+        }
+    }
+}
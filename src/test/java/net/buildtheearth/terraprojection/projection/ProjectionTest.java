@@ -1,18 +1,62 @@
 package net.buildtheearth.terraprojection.projection;
 
+import com.google.common.collect.ObjectArrays;
+import com.google.gson.JsonParseException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import net.buildtheearth.terraprojection.TerraProjectionConstants;
+import net.buildtheearth.terraprojection.metrics.ProjectionMetrics;
+import net.buildtheearth.terraprojection.metrics.ProjectionMetricsRegistry;
+import net.buildtheearth.terraprojection.projection.compiler.ProjectionCompiler;
 import net.buildtheearth.terraprojection.projection.dymaxion.BTEDymaxionProjection;
 import net.buildtheearth.terraprojection.projection.dymaxion.ConformalDynmaxionProjection;
+import net.buildtheearth.terraprojection.projection.dymaxion.ConformalFieldFile;
+import net.buildtheearth.terraprojection.projection.dymaxion.ConformalFieldGenerator;
 import net.buildtheearth.terraprojection.projection.dymaxion.DymaxionProjection;
 import net.buildtheearth.terraprojection.projection.mercator.CenteredMercatorProjection;
 import net.buildtheearth.terraprojection.projection.mercator.TransverseMercatorProjection;
 import net.buildtheearth.terraprojection.projection.mercator.WebMercatorProjection;
+import net.buildtheearth.terraprojection.projection.reference.ReferenceBTEDymaxionProjection;
+import net.buildtheearth.terraprojection.projection.reference.ReferenceConformalDymaxionProjection;
+import net.buildtheearth.terraprojection.projection.reference.ReferenceDymaxionProjection;
 import net.buildtheearth.terraprojection.projection.transform.*;
+import net.buildtheearth.terraprojection.util.BatchUtils;
+import net.buildtheearth.terraprojection.util.BufferBatchUtils;
+import net.buildtheearth.terraprojection.util.FastMath;
+import net.buildtheearth.terraprojection.util.IterationHistogram;
+import net.buildtheearth.terraprojection.util.LogLinearHistogram;
+import net.daporkchop.lib.binary.oio.StreamUtil;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProjectionTest {
@@ -38,7 +82,35 @@ public class ProjectionTest {
 
     @Test
     public void givenResourceFile_testReadabilityAndBteProjection() throws OutOfProjectionBoundsException {
-        testBteProjection(TerraProjectionConstants.BTE_PROJECTION);
+        testBteProjection(TerraProjectionConstants.bteProjection());
+    }
+
+    @Test
+    public void givenWarmUp_testCompletesWithBteProjection() throws Exception {
+        ConformalDynmaxionProjection conformal = (ConformalDynmaxionProjection) ((ProjectionTransform) ((ProjectionTransform) TerraProjectionConstants.bteProjection())
+                .getDelegate()).getDelegate();
+        conformal.getToGeoIterations().setEnabled(true);
+        conformal.getFromGeoIterations().setEnabled(true);
+        long toGeoIterations = conformal.getToGeoIterations().getTotal();
+        long fromGeoIterations = conformal.getFromGeoIterations().getTotal();
+
+        CompletableFuture<GeographicProjection> warmUp = TerraProjectionConstants.warmUp(true);
+        assertSame(TerraProjectionConstants.bteProjection(), warmUp.get(1L, TimeUnit.MINUTES));
+        assertSame(TerraProjectionConstants.bteProjection(), TerraProjectionConstants.warmUp(false).get(1L, TimeUnit.MINUTES));
+
+        //the field the projection used to be stored in is kept for compatibility
+        @SuppressWarnings("deprecation")
+        GeographicProjection legacy = TerraProjectionConstants.BTE_PROJECTION;
+        assertSame(TerraProjectionConstants.bteProjection(), legacy);
+
+        //the warm-up is shared, but the futures returned to each caller aren't
+        TerraProjectionConstants.warmUp(true).cancel(false);
+        assertSame(TerraProjectionConstants.bteProjection(), TerraProjectionConstants.warmUp(true).get(1L, TimeUnit.MINUTES));
+
+        //the points converted to warm up the JIT don't show up in the projection's statistics
+        assertEquals(toGeoIterations, conformal.getToGeoIterations().getTotal());
+        assertEquals(fromGeoIterations, conformal.getFromGeoIterations().getTotal());
+        testBteProjection(warmUp.get());
     }
 
     private void testBteProjection(GeographicProjection projection) throws OutOfProjectionBoundsException {
@@ -155,6 +227,952 @@ public class ProjectionTest {
         assertInstanceOf(projection[18], SwapAxesProjectionTransform.class);
     }
 
+    @Test
+    public void givenAllProjections_testBatchMatchesSinglePoint() {
+        Random random = new Random(1337L);
+        int count = 500;
+        double[] geos = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            geos[2 * i] = random.nextDouble() * 400.0d - 200.0d;
+            geos[2 * i + 1] = random.nextDouble() * 200.0d - 100.0d;
+        }
+
+        for (GeographicProjection projection : allProjections()) {
+            double[] positions = new double[count * 2];
+            long[] valid = BatchUtils.newMask(count);
+            int converted = projection.fromGeoBatch(geos, positions, 0, count, valid);
+            assertBatchMatches(projection::fromGeo, geos, positions, valid, converted);
+
+            //project the results back in place, leaving out the first few points to check offsets
+            double[] inPlace = positions.clone();
+            converted = projection.toGeoBatch(inPlace, inPlace, 3, count - 3, valid);
+            assertBatchMatches(projection::toGeo, Arrays.copyOfRange(positions, 6, count * 2), Arrays.copyOfRange(inPlace, 6, count * 2),
+                    BitSet.valueOf(valid).get(3, count).toLongArray(), converted);
+        }
+    }
+
+    @Test
+    public void givenAllProjections_testNonThrowingMatchesThrowing() {
+        Random random = new Random(4242L);
+        double[] dst = new double[5];
+        for (GeographicProjection projection : allProjections()) {
+            for (int i = 0; i < 500; i++) {
+                double lon = random.nextDouble() * 400.0d - 200.0d;
+                double lat = random.nextDouble() * 200.0d - 100.0d;
+
+                double[] expected;
+                try {
+                    expected = projection.fromGeo(lon, lat);
+                } catch (OutOfProjectionBoundsException e) {
+                    assertFalse(projection.fromGeo(lon, lat, dst, 1));
+                    continue;
+                }
+                assertTrue(projection.fromGeo(lon, lat, dst, 1));
+                assertEquals(expected[0], dst[1], 1e-9d);
+                assertEquals(expected[1], dst[2], 1e-9d);
+
+                double x = dst[1];
+                double y = dst[2];
+                try {
+                    expected = projection.toGeo(x, y);
+                } catch (OutOfProjectionBoundsException e) {
+                    assertFalse(projection.toGeo(x, y, dst, 3));
+                    continue;
+                }
+                assertTrue(projection.toGeo(x, y, dst, 3));
+                assertEquals(expected[0], dst[3], 1e-9d);
+                assertEquals(expected[1], dst[4], 1e-9d);
+
+                try {
+                    expected = projection.vector(x, y, 10.0d, 10.0d);
+                    assertTrue(projection.vector(x, y, 10.0d, 10.0d, dst, 0));
+                    assertEquals(expected[0], dst[0], 1e-9d);
+                    assertEquals(expected[1], dst[1], 1e-9d);
+                } catch (OutOfProjectionBoundsException e) {
+                    assertFalse(projection.vector(x, y, 10.0d, 10.0d, dst, 0));
+                }
+
+                try {
+                    assertEquals(projection.azimuth(x, y, 30.0f), projection.azimuth(x, y, 30.0f, dst), 1e-3f);
+                } catch (OutOfProjectionBoundsException e) {
+                    assertTrue(Float.isNaN(projection.azimuth(x, y, 30.0f, dst)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void givenAllProjections_testBufferBatchMatchesArrayBatch() {
+        Random random = new Random(31337L);
+        int count = 300; //not a multiple of the chunk size
+        double[] geos = new double[count * 2];
+        for (int i = 0; i < geos.length; i++) {
+            geos[i] = random.nextDouble() * 400.0d - 200.0d;
+        }
+
+        long[] largeValid = BatchUtils.newMask(1 << 28);
+        for (GeographicProjection projection : allProjections()) {
+            double[] expected = new double[count * 2];
+            long[] expectedValid = BatchUtils.newMask(count);
+            int expectedConverted = projection.fromGeoBatch(geos, expected, 0, count, expectedValid);
+
+            DoubleBuffer doubleBuffer = ByteBuffer.allocateDirect(count * 16).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            doubleBuffer.put(geos);
+            long[] valid = BatchUtils.newMask(count);
+            assertEquals(expectedConverted, BufferBatchUtils.fromGeoBatch(projection, doubleBuffer, 0, doubleBuffer, 0, count, valid));
+            assertArrayEquals(expectedValid, valid);
+            for (int i = 0; i < count * 2; i++) {
+                assertEquals(expected[i], doubleBuffer.get(i));
+            }
+
+            ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.directBuffer(8 + count * 16);
+            try {
+                byteBuf.writeLong(0L);
+                for (double d : geos) {
+                    byteBuf.writeDoubleLE(d);
+                }
+                valid = BatchUtils.newMask(count);
+                assertEquals(expectedConverted, BufferBatchUtils.fromGeoBatch(projection, byteBuf, 8, byteBuf, 8, count, valid));
+                assertArrayEquals(expectedValid, valid);
+                for (int i = 0; i < count * 2; i++) {
+                    assertEquals(expected[i], byteBuf.getDoubleLE(8 + i * 8));
+                }
+
+                double[] expectedGeos = new double[count * 2];
+                expectedConverted = projection.toGeoBatch(expected, expectedGeos, 0, count, expectedValid);
+                assertEquals(expectedConverted, BufferBatchUtils.toGeoBatch(projection, byteBuf, 8, byteBuf, 8, count, valid));
+                assertArrayEquals(expectedValid, valid);
+                for (int i = 0; i < count * 2; i++) {
+                    assertEquals(expectedGeos[i], byteBuf.getDoubleLE(8 + i * 8));
+                }
+
+                //the end of this batch overflows an int
+                assertThrows(IllegalArgumentException.class, () -> BufferBatchUtils.toGeoBatch(projection, byteBuf, 8, byteBuf, 8, 1 << 28, largeValid));
+            } finally {
+                byteBuf.release();
+            }
+        }
+    }
+
+    @Test
+    public void givenAllProjections_testParallelMatchesSequential() {
+        Random random = new Random(7L);
+        int count = 10000;
+        double[] geos = new double[count * 2];
+        for (int i = 0; i < geos.length; i++) {
+            geos[i] = random.nextDouble() * 400.0d - 200.0d;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelProjector projector = new ParallelProjector(pool, 64);
+            for (GeographicProjection projection : allProjections()) {
+                //start at an offset which isn't aligned to a bitmap word
+                double[] expected = new double[count * 2];
+                long[] expectedValid = BatchUtils.newMask(count);
+                int expectedConverted = projection.fromGeoBatch(geos, expected, 5, count - 5, expectedValid);
+
+                double[] actual = new double[count * 2];
+                long[] valid = BatchUtils.newMask(count);
+                assertEquals(expectedConverted, projector.fromGeo(projection, geos, actual, 5, count - 5, valid));
+                assertArrayEquals(expected, actual);
+                assertArrayEquals(expectedValid, valid);
+
+                double[] expectedGeos = new double[count * 2];
+                expectedConverted = projection.toGeoBatch(expected, expectedGeos, 5, count - 5, expectedValid);
+                assertEquals(expectedConverted, projector.toGeo(projection, actual, actual, 5, count - 5, valid));
+                assertArrayEquals(expectedGeos, actual);
+                assertArrayEquals(expectedValid, valid);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void givenAffineChain_testFusionMatchesLayers() throws OutOfProjectionBoundsException {
+        final String chainJson = "{ \"scale\": { \"delegate\": { \"offset\": { \"delegate\": { \"rotate\": { \"delegate\": { \"swap_axes\": { \"delegate\": " +
+                "{ \"flip_vertical\": { \"delegate\": { \"flip_horizontal\": { \"delegate\": { \"sinusoidal\": {} } } } } } } }, \"by\": 33 } }, " +
+                "\"dx\": 3, \"dy\": -7 } }, \"x\": 12.5, \"y\": -0.25 } }";
+        GeographicProjection chain = GeographicProjection.parse(chainJson);
+
+        //the chain itself is preserved, and the fused matrices are not serialized
+        assertEquals("Scale (Offset (Rotate (Swap Axes(Vertical Flip (Horizontal Flip (Sinusoidal)))) by 33.0 degrees) by 3.0, -7.0) by 12.5, -0.25", chain.toString());
+        assertInstanceOf(((ScaleProjectionTransform) chain).getDelegate(), OffsetProjectionTransform.class);
+        assertFalse(TerraProjectionConstants.GSON.toJson(chain).contains("Matrix"));
+
+        GeographicProjection sinusoidal = new SinusoidalProjection();
+        double sin = Math.sin(Math.toRadians(33));
+        double cos = Math.cos(Math.toRadians(33));
+        Random random = new Random(1234L);
+        for (int i = 0; i < 1000; i++) {
+            double lon = random.nextDouble() * 360.0d - 180.0d;
+            double lat = random.nextDouble() * 180.0d - 90.0d;
+
+            //apply each layer one after the other
+            double[] p = sinusoidal.fromGeo(lon, lat);
+            double x = -p[0];
+            double y = -p[1];
+            double t = x;
+            x = y;
+            y = t;
+            t = x;
+            x = t * cos + y * sin;
+            y = -t * sin + y * cos;
+            x = (x + 3) * 12.5;
+            y = (y - 7) * -0.25;
+
+            double[] fused = chain.fromGeo(lon, lat);
+            assertEquals(x, fused[0], 1e-9d);
+            assertEquals(y, fused[1], 1e-9d);
+
+            double[] geo = chain.toGeo(fused[0], fused[1]);
+            assertEquals(lon, geo[0], 1e-9d);
+            assertEquals(lat, geo[1], 1e-9d);
+        }
+    }
+
+    @Test
+    public void givenAllProjections_testCompiledMatchesInterpreted() {
+        Random random = new Random(2468L);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (GeographicProjection projection : allProjections()) {
+            GeographicProjection compiled = ProjectionCompiler.compile(projection);
+            assertEquals("Compiled (" + projection + ')', compiled.toString());
+
+            for (int i = 0; i < 500; i++) {
+                double lon = random.nextDouble() * 400.0d - 200.0d;
+                double lat = random.nextDouble() * 200.0d - 100.0d;
+                boolean converted = projection.fromGeo(lon, lat, expected, 0);
+                assertEquals(converted, compiled.fromGeo(lon, lat, actual, 0));
+                if (!converted) {
+                    continue;
+                }
+                assertArrayEquals(expected, actual);
+
+                double x = expected[0];
+                double y = expected[1];
+                converted = projection.toGeo(x, y, expected, 0);
+                assertEquals(converted, compiled.toGeo(x, y, actual, 0));
+                if (converted) {
+                    assertArrayEquals(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void givenAllProjections_testGridMatchesSinglePoint() {
+        int width = 37;
+        int height = 21;
+        int off = 5;
+        double[] dst = new double[(off + width * height) * 2];
+        long[] valid = BatchUtils.newMask(off + width * height);
+        double[] expected = new double[2];
+        for (GeographicProjection projection : allProjections()) {
+            //geographic grid covering the whole world and a bit more, in both directions
+            for (int flip = 0; flip < 2; flip++) {
+                double originLon = flip == 0 ? -190.0d : 190.0d;
+                double stepLon = (flip == 0 ? 380.0d : -380.0d) / (width - 1);
+                double originLat = flip == 0 ? -95.0d : 95.0d;
+                double stepLat = (flip == 0 ? 190.0d : -190.0d) / (height - 1);
+                int converted = projection.fromGeoGrid(originLon, originLat, stepLon, stepLat, width, height, dst, off, valid);
+
+                int expectedConverted = 0;
+                for (int j = 0; j < height; j++) {
+                    for (int i = 0; i < width; i++) {
+                        int index = off + j * width + i;
+                        boolean ok = projection.fromGeo(originLon + i * stepLon, originLat + j * stepLat, expected, 0);
+                        assertEquals(ok, BatchUtils.isValid(valid, index), projection + " at " + i + ", " + j);
+                        if (ok) {
+                            expectedConverted++;
+                            assertRelativelyEquals(expected[0], dst[2 * index]);
+                            assertRelativelyEquals(expected[1], dst[2 * index + 1]);
+                        } else {
+                            assertTrue(Double.isNaN(dst[2 * index]) && Double.isNaN(dst[2 * index + 1]));
+                        }
+                    }
+                }
+                assertEquals(expectedConverted, converted);
+            }
+
+            //projected grid covering the projection's bounds and a bit more
+            double[] bounds = projection.bounds();
+            double stepX = (bounds[2] - bounds[0]) * 1.1d / (width - 1);
+            double stepY = (bounds[3] - bounds[1]) * 1.1d / (height - 1);
+            double originX = bounds[0] - stepX * width * 0.05d;
+            double originY = bounds[1] - stepY * height * 0.05d;
+            int converted = projection.toGeoGrid(originX, originY, stepX, stepY, width, height, dst, off, valid);
+
+            int expectedConverted = 0;
+            for (int j = 0; j < height; j++) {
+                for (int i = 0; i < width; i++) {
+                    int index = off + j * width + i;
+                    boolean ok = projection.toGeo(originX + i * stepX, originY + j * stepY, expected, 0);
+                    assertEquals(ok, BatchUtils.isValid(valid, index), projection + " at " + i + ", " + j);
+                    if (ok) {
+                        expectedConverted++;
+                        assertRelativelyEquals(expected[0], dst[2 * index]);
+                        assertRelativelyEquals(expected[1], dst[2 * index + 1]);
+                    } else {
+                        assertTrue(Double.isNaN(dst[2 * index]) && Double.isNaN(dst[2 * index + 1]));
+                    }
+                }
+            }
+            assertEquals(expectedConverted, converted);
+        }
+    }
+
+    @Test
+    public void givenApproximateBteProjection_testErrorIsBounded() {
+        final String approximateJson = "{ \"approximate\": { \"delegate\": { \"scale\": { \"delegate\": { \"flip_vertical\": { \"delegate\": " +
+                "{ \"bte_conformal_dymaxion\": {} } } }, \"x\": 7318261.522857145, \"y\": 7318261.522857145 } }, \"maxErrorMeters\": 0.01 } }";
+        GeographicProjection approximate = GeographicProjection.parse(approximateJson);
+        assertInstanceOf(approximate, ApproximateProjectionTransform.class, transform -> {
+            assertEquals(0.01d, transform.getMaxErrorMeters());
+            assertEquals(ApproximateProjectionTransform.DEFAULT_TILE_SIZE, transform.getTileSize());
+        });
+        GeographicProjection exact = ((ApproximateProjectionTransform) approximate).getDelegate();
+
+        Random random = new Random(8642L);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (int i = 0; i < 100000; i++) {
+            //mostly clustered around a few places, as in actual use
+            double x;
+            double y;
+            if ((i & 15) == 0) {
+                x = random.nextDouble() * 4.0e7d - 2.0e7d;
+                y = random.nextDouble() * 2.0e7d - 1.5e7d;
+            } else {
+                x = (random.nextInt(8) - 4) * 2.0e6d + random.nextDouble() * 20000.0d;
+                y = (random.nextInt(4) - 3) * 2.0e6d + random.nextDouble() * 20000.0d;
+            }
+
+            boolean converted = exact.toGeo(x, y, expected, 0);
+            assertEquals(converted, approximate.toGeo(x, y, actual, 0));
+            if (converted) {
+                double errorX = (actual[0] - expected[0]) * TerraProjectionConstants.EARTH_CIRCUMFERENCE / 360.0d * Math.cos(Math.toRadians(expected[1]));
+                double errorY = (actual[1] - expected[1]) * TerraProjectionConstants.EARTH_POLAR_CIRCUMFERENCE / 360.0d;
+                assertTrue(Math.sqrt(errorX * errorX + errorY * errorY) <= 0.01d, "error is too large at " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    public void givenCachedBteProjection_testMatchesUncached() {
+        final String cachedJson = "{ \"cached\": { \"delegate\": { \"scale\": { \"delegate\": { \"flip_vertical\": { \"delegate\": " +
+                "{ \"bte_conformal_dymaxion\": {} } } }, \"x\": 7318261.522857145, \"y\": 7318261.522857145 } }, \"maxChunks\": 60 } }";
+        GeographicProjection projection = GeographicProjection.parse(cachedJson);
+        assertInstanceOf(projection, CachedProjectionTransform.class, transform -> {
+            assertEquals(CachedProjectionTransform.DEFAULT_CHUNK_SIZE, transform.getChunkSize());
+            assertEquals(64, transform.getMaxChunks());
+        });
+        CachedProjectionTransform cached = (CachedProjectionTransform) projection;
+        GeographicProjection exact = cached.getDelegate();
+
+        //a few clusters of nearby block positions and some random points, from many threads at once
+        int count = 50000;
+        IntStream.range(0, count).parallel().forEach(i -> {
+            Random random = new Random(i);
+            double x;
+            double y;
+            if ((i & 7) == 0) {
+                x = random.nextDouble() * 4.0e7d - 2.0e7d;
+                y = random.nextDouble() * 2.0e7d - 1.5e7d;
+            } else {
+                x = (random.nextInt(4) - 2) * 2.0e6d + random.nextInt(48);
+                y = -2.0e6d + random.nextInt(48);
+            }
+
+            double[] expected = new double[2];
+            double[] actual = new double[2];
+            boolean converted = exact.toGeo(x, y, expected, 0);
+            assertEquals(converted, cached.toGeo(x, y, actual, 0), "at " + x + ", " + y);
+            if (converted) {
+                assertRelativelyEquals(expected[0], actual[0]);
+                assertRelativelyEquals(expected[1], actual[1]);
+            }
+        });
+
+        assertEquals(count - count / 8, cached.getHitCount() + cached.getMissCount());
+        assertTrue(cached.getHitCount() > 10L * cached.getMissCount());
+
+        //visiting many more chunks than can be cached must evict some
+        double[] dst = new double[2];
+        for (int i = 0; i < 256; i++) {
+            cached.toGeo(i * 16.0d, 1.0e6d, dst, 0);
+        }
+        assertTrue(cached.getEvictionCount() >= 256L - cached.getMaxChunks());
+    }
+
+    @Test
+    public void givenTinyCache_testMatchesUncached() throws OutOfProjectionBoundsException {
+        //a single set of chunks
+        GeographicProjection exact = new EquirectangularProjection();
+        CachedProjectionTransform cached = new CachedProjectionTransform(exact, 16, 1);
+        assertEquals(8, cached.getMaxChunks());
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int y = -40; y < 40; y += 5) {
+                for (int x = -60; x < 60; x += 7) {
+                    assertArrayEquals(exact.toGeo(x, y), cached.toGeo(x, y));
+                }
+            }
+        }
+        assertTrue(cached.getEvictionCount() > 0L);
+
+        //chunks which fit in the cache are only computed once
+        cached.clear();
+        long misses = cached.getMissCount();
+        for (int pass = 0; pass < 3; pass++) {
+            for (int i = 0; i < 8; i++) {
+                assertArrayEquals(exact.toGeo(i * 16.0d, 0.0d), cached.toGeo(i * 16.0d, 0.0d));
+            }
+        }
+        assertEquals(misses + 8L, cached.getMissCount());
+    }
+
+    @Test
+    public void givenDymaxionProjection_testFaceIndexMatchesLinearScan() {
+        new DymaxionProjection() {
+            {
+                Random random = new Random(4242L);
+                for (int i = 0; i < 200000; i++) {
+                    double[] vector;
+                    if ((i & 1) == 0) {
+                        vector = new double[]{ random.nextGaussian(), random.nextGaussian(), random.nextGaussian() };
+                    } else { //close to the edges and vertices of the faces, where several of them are almost equally close
+                        int a = random.nextInt(20);
+                        int b = random.nextInt(20);
+                        double t = 0.5d + (random.nextDouble() - 0.5d) * 1.0e-6d;
+                        vector = new double[]{
+                                CENTROIDS_X[a] * t + CENTROIDS_X[b] * (1.0d - t),
+                                CENTROIDS_Y[a] * t + CENTROIDS_Y[b] * (1.0d - t),
+                                CENTROIDS_Z[a] * t + CENTROIDS_Z[b] * (1.0d - t) };
+                    }
+
+                    double min = Double.MAX_VALUE;
+                    int expected = 0;
+                    for (int face = 0; face < 20; face++) {
+                        double xd = CENTROIDS_X[face] - vector[0];
+                        double yd = CENTROIDS_Y[face] - vector[1];
+                        double zd = CENTROIDS_Z[face] - vector[2];
+                        double dissq = xd * xd + yd * yd + zd * zd;
+                        if (dissq < min) {
+                            expected = face;
+                            min = dissq;
+                        }
+                    }
+                    assertEquals(expected, this.findTriangle(vector[0], vector[1], vector[2]), () -> Arrays.toString(vector));
+                }
+            }
+        };
+    }
+
+    @Test
+    public void givenConformalFieldFile_testMappedMatchesDecoded() throws IOException {
+        Path directory = Files.createTempDirectory("terraprojection");
+        try {
+            Path file = directory.resolve("conformal.bin");
+            new ConformalDynmaxionProjection() {
+                {
+                    CRC32 crc = new CRC32();
+                    try (InputStream in = ConformalDynmaxionProjection.class.getResourceAsStream("conformal.lzma")) {
+                        crc.update(StreamUtil.toByteArray(in));
+                    }
+                    assertEquals(crc.getValue(), BUNDLED_FIELD_HASH);
+
+                    InvertableVectorField decoded = loadInverse(null);
+                    InvertableVectorField created = loadInverse(file);
+                    assertTrue(Files.exists(file));
+                    InvertableVectorField mapped = loadInverse(file);
+
+                    //stale or corrupted files are replaced. They must not be modified in place, as they are still mapped
+                    Files.delete(file);
+                    Files.write(file, new byte[]{ 1, 2, 3, 4 });
+                    InvertableVectorField recreated = loadInverse(file);
+                    assertEquals(created.getClass(), recreated.getClass());
+                    byte[] original = Files.readAllBytes(file);
+
+                    //so are files whose values don't match their checksum
+                    byte[] corrupted = original.clone();
+                    corrupted[corrupted.length / 2] ^= 1;
+                    Files.delete(file);
+                    Files.write(file, corrupted);
+                    loadInverse(file);
+                    assertArrayEquals(original, Files.readAllBytes(file));
+
+                    //files which another user may have written aren't mapped
+                    if (Files.getFileAttributeView(directory, PosixFileAttributeView.class) != null) {
+                        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+                        assertThrows(IOException.class, () -> ConformalFieldFile.map(file, 1, 1, 0L));
+                        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+                    }
+
+                    Random random = new Random(1234L);
+                    double[] expected = new double[2];
+                    double[] actual = new double[2];
+                    for (int i = 0; i < 10000; i++) {
+                        double x = random.nextDouble();
+                        double y = random.nextDouble() * 0.9d;
+                        decoded.getInterpolatedVector(x, y, expected, 0);
+                        for (InvertableVectorField field : new InvertableVectorField[]{ created, mapped, recreated }) {
+                            field.getInterpolatedVector(x, y, actual, 0);
+                            assertArrayEquals(expected, actual);
+                        }
+                    }
+                }
+            };
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(path -> path.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void givenGeneratedConformalField_testMatchesBundled() throws IOException {
+        int sideLength = 16;
+        double[][][] generated = ConformalFieldGenerator.computeVertices(sideLength);
+
+        Path directory = Files.createTempDirectory("terraprojection");
+        try {
+            Path file = directory.resolve("conformal-generated.bin");
+            ConformalFieldGenerator.main(file.toString(), String.valueOf(sideLength));
+            new ConformalDynmaxionProjection() {
+                {
+                    InvertableVectorField bundled = loadInverse(null);
+                    InvertableVectorField loaded = loadInverse(file);
+                    assertEquals(sideLength, loaded.getSideLength());
+
+                    double[] expected = new double[2];
+                    double[] actual = new double[2];
+                    for (int u = 0; u <= sideLength; u++) {
+                        for (int v = 0; u + v <= sideLength; v++) {
+                            //stay inside of the triangle, so that the interpolation doesn't extrapolate the field when rounding down
+                            double x = Math.min(Math.max((u + 0.5d * v) / sideLength, 1.0e-12d), 1.0d - 1.0e-12d);
+                            double y = Math.max(0.5d * Math.sqrt(3.0d) * v / sideLength, 1.0e-12d);
+
+                            //the bundled field was computed with an iterative solver, which is off by up to a few meters near the vertices
+                            bundled.getInterpolatedVector(x, y, expected, 0);
+                            assertEquals(expected[0], generated[0][u][v], 1.0e-6d);
+                            assertEquals(expected[1], generated[1][u][v], 1.0e-6d);
+
+                            loaded.getInterpolatedVector(x, y, actual, 0);
+                            assertEquals(generated[0][u][v], actual[0], 1.0e-9d);
+                            assertEquals(generated[1][u][v], actual[1], 1.0e-9d);
+                        }
+                    }
+
+                    //corrupted generated fields are an error, rather than being replaced with the bundled field
+                    byte[] corrupted = Files.readAllBytes(file);
+                    corrupted[corrupted.length / 2] ^= 1;
+                    Files.delete(file);
+                    Files.write(file, corrupted);
+                    assertThrows(IOException.class, () -> loadInverse(file));
+                    assertArrayEquals(corrupted, Files.readAllBytes(file));
+                }
+            };
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(path -> path.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void givenSinglePrecisionBteProjection_testErrorWithinBound() {
+        BTEDymaxionProjection exact = new BTEDymaxionProjection();
+        BTEDymaxionProjection single = (BTEDymaxionProjection) TerraProjectionConstants.GSON.fromJson(
+                "{ \"bte_conformal_dymaxion\": { \"singlePrecision\": true } }", GeographicProjection.class);
+        assertTrue(single.isSinglePrecision());
+
+        double metersPerUnit = exact.metersPerUnit();
+        double metersPerRadian = 40075017.0d / (2.0d * Math.PI);
+        Random random = new Random(5678L);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (int i = 0; i < 200000; i++) {
+            double longitude = random.nextDouble() * 360.0d - 180.0d;
+            double latitude = Math.toDegrees(Math.asin(random.nextDouble() * 2.0d - 1.0d));
+            assertEquals(exact.fromGeo(longitude, latitude, expected, 0), single.fromGeo(longitude, latitude, actual, 0));
+            assertTrue(Math.hypot(expected[0] - actual[0], expected[1] - actual[1]) * metersPerUnit <= ConformalDynmaxionProjection.SINGLE_PRECISION_MAX_ERROR);
+
+            double x = expected[0];
+            double y = expected[1];
+            assertEquals(exact.toGeo(x, y, expected, 0), single.toGeo(x, y, actual, 0));
+            double dx = Math.toRadians(expected[0] - actual[0]) * Math.cos(Math.toRadians(expected[1]));
+            double dy = Math.toRadians(expected[1] - actual[1]);
+            assertTrue(Math.hypot(dx, dy) * metersPerRadian <= ConformalDynmaxionProjection.SINGLE_PRECISION_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void givenSinglePrecisionField_testDecodedMatchesRounded() {
+        new ConformalDynmaxionProjection() {
+            {
+                DoubleVectorField doubles = (DoubleVectorField) INVERSE_CACHE.get();
+                InvertableVectorField rounded = new FloatVectorField(doubles);
+                InvertableVectorField decoded = new FloatVectorField(doubles.getVertices());
+
+                Random random = new Random(8642L);
+                double[] vector = new double[2];
+                double[] expected = new double[6];
+                double[] actual = new double[6];
+                for (int i = 0; i < 10000; i++) {
+                    double x = random.nextDouble();
+                    double y = random.nextDouble() * 0.9d;
+                    rounded.getInterpolatedVectorAndDerivatives(x, y, expected, 0);
+                    decoded.getInterpolatedVectorAndDerivatives(x, y, actual, 0);
+                    assertArrayEquals(expected, actual, 1.0e-9d);
+
+                    decoded.getInterpolatedVector(x, y, vector, 0);
+                    assertEquals(actual[0], vector[0]);
+                    assertEquals(actual[1], vector[1]);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void givenCubicInterpolation_testCloserToExactField() {
+        ConformalDynmaxionProjection cubicProjection = (ConformalDynmaxionProjection) TerraProjectionConstants.GSON.fromJson(
+                "{ \"conformal_dymaxion\": { \"interpolation\": \"cubic\" } }", GeographicProjection.class);
+        assertEquals(ConformalDynmaxionProjection.Interpolation.CUBIC, cubicProjection.getInterpolation());
+
+        new ConformalDynmaxionProjection() {
+            {
+                InvertableVectorField linear = INVERSE_CACHE.get();
+                InvertableVectorField cubic = CUBIC_INVERSE_CACHE.get();
+
+                double linearError = 0.0d;
+                double cubicError = 0.0d;
+                Random random = new Random(4321L);
+                double[] exact = new double[2];
+                double[] actual = new double[2];
+                for (int i = 0; i < 2000; i++) {
+                    //stay away from the vertices, where the field isn't smooth
+                    double x = 0.1d + random.nextDouble() * 0.8d;
+                    double y = random.nextDouble() * Math.sqrt(3.0d) / 2.0d;
+                    if (y > Math.sqrt(3.0d) * (Math.min(x, 1.0d - x) - 0.05d)) {
+                        continue;
+                    }
+
+                    ConformalFieldGenerator.computeVector(x, y, exact, 0);
+                    linear.getInterpolatedVector(x, y, actual, 0);
+                    linearError += Math.hypot(exact[0] - actual[0], exact[1] - actual[1]);
+                    cubic.getInterpolatedVector(x, y, actual, 0);
+                    cubicError += Math.hypot(exact[0] - actual[0], exact[1] - actual[1]);
+
+                    //the cubic interpolation is smooth, so Newton's method should converge to the exact inverse
+                    cubic.applyNewtonsMethod(actual[0], actual[1], actual[0] / ARC + 0.5d, actual[1] / ARC + Math.sqrt(3.0d) / 6.0d,
+                            cubic.newtonIterations(), 0.0d, actual, 0);
+                    assertEquals(x, actual[0], 1.0e-12d);
+                    assertEquals(y, actual[1], 1.0e-12d);
+                }
+                assertTrue(cubicError * 10.0d < linearError, "cubic: " + cubicError + ", linear: " + linearError);
+            }
+        };
+    }
+
+    @Test
+    public void givenLinearConformalField_testInverseMatchesNewtonsMethod() {
+        new ConformalDynmaxionProjection() {
+            {
+                Random random = new Random(8765L);
+                double[] vector = new double[2];
+                double[] expected = new double[2];
+                double[] actual = new double[2];
+                for (InvertableVectorField field : new InvertableVectorField[]{ INVERSE_CACHE.get(), FLOAT_INVERSE_CACHE.get() }) {
+                    for (int i = 0; i < 100000; i++) {
+                        double x = random.nextDouble();
+                        double y = random.nextDouble() * Math.sqrt(3.0d) / 2.0d;
+                        if (y > Math.sqrt(3.0d) * Math.min(x, 1.0d - x)) {
+                            continue;
+                        }
+
+                        field.getInterpolatedVector(x, y, vector, 0);
+                        field.applyNewtonsMethod(vector[0], vector[1], vector[0] / ARC + 0.5d, vector[1] / ARC + Math.sqrt(3.0d) / 6.0d, 20, 0.0d, expected, 0);
+                        field.invert(vector[0], vector[1], 0.0d, actual, 0);
+                        assertEquals(expected[0], actual[0], 1.0e-14d);
+                        assertEquals(expected[1], actual[1], 1.0e-14d);
+                        assertEquals(x, actual[0], 1.0e-12d);
+                        assertEquals(y, actual[1], 1.0e-12d);
+                    }
+                }
+            }
+        };
+    }
+
+    @Test
+    public void givenSolverPrecision_testResultsWithinTolerance() {
+        String[] names = { "equal_earth", "dymaxion", "bte_conformal_dymaxion" };
+        for (String name : names) {
+            for (String precision : new String[]{ "\"fast\"", "\"balanced\"", "1.0e-5" }) {
+                GeographicProjection exact = TerraProjectionConstants.GSON.fromJson("{ \"" + name + "\": {} }", GeographicProjection.class);
+                GeographicProjection projection = TerraProjectionConstants.GSON.fromJson(
+                        "{ \"" + name + "\": { \"precision\": " + precision + " } }", GeographicProjection.class);
+                String json = TerraProjectionConstants.GSON.toJson(projection, GeographicProjection.class);
+                assertTrue(json.contains("\"precision\":" + precision.replace("1.0e-5", "1.0E-5")), json);
+
+                double tolerance = projection instanceof EqualEarthProjection
+                        ? ((EqualEarthProjection) projection).getPrecision().getTolerance()
+                        : ((DymaxionProjection) projection).getPrecision().getTolerance();
+                IterationHistogram iterations = projection instanceof EqualEarthProjection
+                        ? ((EqualEarthProjection) projection).getToGeoIterations()
+                        : ((DymaxionProjection) projection).getToGeoIterations();
+                IterationHistogram exactIterations = exact instanceof EqualEarthProjection
+                        ? ((EqualEarthProjection) exact).getToGeoIterations()
+                        : ((DymaxionProjection) exact).getToGeoIterations();
+                assertFalse(iterations.isEnabled());
+                iterations.setEnabled(true);
+                exactIterations.setEnabled(true);
+
+                Random random = new Random(2468L);
+                double[] expected = new double[2];
+                double[] actual = new double[2];
+                for (int i = 0; i < 10000; i++) {
+                    double longitude = random.nextDouble() * 360.0d - 180.0d;
+                    double latitude = Math.toDegrees(Math.asin(random.nextDouble() * 2.0d - 1.0d));
+                    if (!exact.fromGeo(longitude, latitude, expected, 0)) {
+                        continue;
+                    }
+                    double x = expected[0];
+                    double y = expected[1];
+                    assertTrue(exact.toGeo(x, y, expected, 0));
+                    assertTrue(projection.toGeo(x, y, actual, 0));
+                    //the solvers stop after a step smaller than the tolerance, and converge quadratically
+                    assertEquals(expected[0], actual[0], Math.toDegrees(tolerance) / Math.cos(Math.toRadians(expected[1])));
+                    assertEquals(expected[1], actual[1], Math.toDegrees(tolerance));
+
+                    projection.fromGeo(longitude, latitude, actual, 0);
+                    assertTrue(exact.fromGeo(longitude, latitude, expected, 0));
+                    assertEquals(expected[0], actual[0], tolerance);
+                    assertEquals(expected[1], actual[1], tolerance);
+                }
+
+                assertEquals(exactIterations.getTotal(), iterations.getTotal());
+                assertTrue(iterations.getMean() < exactIterations.getMean(), iterations + " " + exactIterations);
+            }
+        }
+
+        assertThrows(JsonParseException.class, () -> TerraProjectionConstants.GSON.fromJson(
+                "{ \"dymaxion\": { \"precision\": \"sloppy\" } }", GeographicProjection.class));
+    }
+
+    @Test
+    public void givenFastMath_testErrorWithinBound() {
+        Random random = new Random(1357L);
+        for (int i = 0; i < 1000000; i++) {
+            double x = Math.scalb(random.nextDouble() - 0.5d, random.nextInt(60) - 30);
+            double y = Math.scalb(random.nextDouble() - 0.5d, random.nextInt(60) - 30);
+            assertEquals(Math.atan(x), FastMath.atan(x), 4 * Math.ulp(Math.atan(x)));
+            assertEquals(Math.atan2(y, x), FastMath.atan2(y, x), 4 * Math.ulp(Math.atan2(y, x)));
+            double z = random.nextDouble() * 8.0d - 4.0d;
+            assertEquals(Math.tan(z), FastMath.tan(z), 8 * Math.ulp(Math.tan(z)));
+        }
+
+        double metersPerRadian = 40075017.0d / (2.0d * Math.PI);
+        for (String name : new String[]{ "dymaxion", "conformal_dymaxion", "bte_conformal_dymaxion" }) {
+            DymaxionProjection strict = (DymaxionProjection) TerraProjectionConstants.GSON.fromJson(
+                    "{ \"" + name + "\": {} }", GeographicProjection.class);
+            DymaxionProjection fast = (DymaxionProjection) TerraProjectionConstants.GSON.fromJson(
+                    "{ \"" + name + "\": { \"fastMath\": true } }", GeographicProjection.class);
+            assertFalse(strict.isFastMath());
+            assertTrue(fast.isFastMath());
+            assertTrue(TerraProjectionConstants.GSON.toJson(fast, GeographicProjection.class).contains("\"fastMath\":true"));
+
+            double metersPerUnit = strict.metersPerUnit();
+            double[] expected = new double[2];
+            double[] actual = new double[2];
+            for (int i = 0; i < 100000; i++) {
+                double longitude = random.nextDouble() * 360.0d - 180.0d;
+                double latitude = Math.toDegrees(Math.asin(random.nextDouble() * 2.0d - 1.0d));
+                assertEquals(strict.fromGeo(longitude, latitude, expected, 0), fast.fromGeo(longitude, latitude, actual, 0));
+                assertTrue(Math.hypot(expected[0] - actual[0], expected[1] - actual[1]) * metersPerUnit <= DymaxionProjection.FAST_MATH_MAX_ERROR);
+
+                double x = expected[0];
+                double y = expected[1];
+                assertEquals(strict.toGeo(x, y, expected, 0), fast.toGeo(x, y, actual, 0));
+                double dx = Math.toRadians(expected[0] - actual[0]) * Math.cos(Math.toRadians(expected[1]));
+                double dy = Math.toRadians(expected[1] - actual[1]);
+                assertTrue(Math.hypot(dx, dy) * metersPerRadian <= DymaxionProjection.FAST_MATH_MAX_ERROR);
+            }
+        }
+    }
+
+    @Test
+    public void givenFastModes_testAccuracyWithinBudget() {
+        testAccuracyWithinBudget(5.0d);
+    }
+
+    @Test
+    @Tag("accuracy") //sweeping the dense grid takes about a minute, so this is only run by the accuracyTest task
+    public void givenFastModes_testAccuracyWithinBudgetOnDenseGrid() {
+        testAccuracyWithinBudget(0.5d);
+    }
+
+    private void testAccuracyWithinBudget(double step) {
+        //closed-form projections only lose precision to rounding
+        for (String name : new String[]{ "centered_mercator", "web_mercator", "transverse_mercator", "equirectangular", "sinusoidal", "equal_earth",
+                "lambert_azimuthal", "azimuthal_equidistant", "stereographic" }) {
+            AccuracyHarness.Result result = AccuracyHarness.measure(GeographicProjection.parse("{ \"" + name + "\": {} }"), null, step);
+            assertTrue(result.roundTrip.max <= 0.05d, result::toString);
+        }
+
+        //the Dymaxion projections are compared to copies of themselves from before they were optimized, each mode must stay within its declared budget
+        double metersPerRadian = TerraProjectionConstants.EARTH_CIRCUMFERENCE / (2.0d * Math.PI);
+        double strict = 1.0e-6d; //exact modes may only differ by rounding
+        GeographicProjection dymaxion = new ReferenceDymaxionProjection();
+        GeographicProjection conformal = new ReferenceConformalDymaxionProjection();
+        GeographicProjection bte = new ReferenceBTEDymaxionProjection();
+        GeographicProjection bteBase = new ScaleProjectionTransform(new FlipVerticalProjectionTransform(bte), 7318261.522857145d, 7318261.522857145d);
+        String bteBaseJson = "{ \"scale\": { \"delegate\": { \"flip_vertical\": { \"delegate\": { \"bte_conformal_dymaxion\": {} } } }, " +
+                "\"x\": 7318261.522857145, \"y\": 7318261.522857145 } }";
+        Object[][] modes = {
+                { "{ \"dymaxion\": {} }", dymaxion, strict },
+                { "{ \"dymaxion\": { \"fastMath\": true } }", dymaxion, DymaxionProjection.FAST_MATH_MAX_ERROR },
+                { "{ \"dymaxion\": { \"precision\": \"fast\" } }", dymaxion, SolverPrecision.FAST.getTolerance() * metersPerRadian },
+                { "{ \"conformal_dymaxion\": {} }", conformal, strict },
+                { "{ \"conformal_dymaxion\": { \"fastMath\": true } }", conformal, DymaxionProjection.FAST_MATH_MAX_ERROR },
+                { "{ \"bte_conformal_dymaxion\": {} }", bte, strict },
+                { "{ \"bte_conformal_dymaxion\": { \"fastMath\": true } }", bte, DymaxionProjection.FAST_MATH_MAX_ERROR },
+                { "{ \"bte_conformal_dymaxion\": { \"singlePrecision\": true } }", bte, ConformalDynmaxionProjection.SINGLE_PRECISION_MAX_ERROR },
+                { "{ \"bte_conformal_dymaxion\": { \"precision\": \"fast\" } }", bte, SolverPrecision.FAST.getTolerance() * metersPerRadian },
+                { bteBaseJson, bteBase, strict },
+                { "{ \"approximate\": { \"delegate\": " + bteBaseJson + " } }", bteBase, ApproximateProjectionTransform.DEFAULT_MAX_ERROR_METERS },
+        };
+        for (Object[] mode : modes) {
+            double budget = (double) mode[2];
+            AccuracyHarness.Result result = AccuracyHarness.measure(GeographicProjection.parse((String) mode[0]), (GeographicProjection) mode[1], step);
+            assertEquals(0, result.mismatches, result::toString);
+            assertTrue(result.fromGeo.max <= budget, result::toString);
+            assertTrue(result.toGeo.max <= budget, result::toString);
+            //a round trip goes through both conversions
+            assertTrue(result.roundTrip.max <= result.referenceRoundTrip.max + 2.0d * budget, result::toString);
+        }
+    }
+
+    @Test
+    public void givenInstrumentedProjection_testMetricsRecorded() throws Exception {
+        Random random = new Random(9753L);
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            histogram.record(values[i] = (long) Math.exp(random.nextDouble() * 25.0d));
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.getTotal());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[]{ 1.0d, 50.0d, 99.0d, 99.9d, 100.0d }) {
+            long expected = values[(int) Math.ceil(percentile / 100.0d * values.length) - 1];
+            assertEquals(expected, histogram.getValueAtPercentile(percentile), expected / 32.0d + 1.0d);
+        }
+
+        InstrumentedProjectionTransform projection = (InstrumentedProjectionTransform) GeographicProjection.parse("{ \"instrumented\": { \"delegate\": " +
+                "{ \"cached\": { \"delegate\": { \"equirectangular\": {} } } }, \"name\": \"metrics test\", \"latencySampling\": 1 } }");
+        assertTrue(TerraProjectionConstants.GSON.toJson(projection, GeographicProjection.class).contains("\"name\":\"metrics test\""));
+        ProjectionMetrics metrics = projection.getMetrics();
+        assertSame(metrics, ProjectionMetricsRegistry.get("metrics test"));
+        metrics.reset();
+
+        double[] dst = new double[2];
+        int outOfBounds = 0;
+        for (int longitude = -200; longitude < 200; longitude++) {
+            assertEquals(Math.abs(longitude) <= 180, projection.fromGeo(longitude, 45.0d, dst, 0));
+            outOfBounds += Math.abs(longitude) > 180 ? 1 : 0;
+            projection.toGeo(longitude, -45.0d, dst, 0);
+        }
+        double[] src = new double[2 * 100];
+        for (int i = 0; i < 100; i++) {
+            src[2 * i] = i * 3.0d;
+        }
+        projection.fromGeoBatch(src, new double[src.length], 0, 100, BatchUtils.newMask(100));
+
+        assertEquals(400, metrics.getFromGeoCount());
+        assertEquals(outOfBounds, metrics.getFromGeoOutOfBoundsCount());
+        assertEquals(400, metrics.getToGeoCount());
+        assertEquals(outOfBounds, metrics.getToGeoOutOfBoundsCount());
+        assertEquals(400, metrics.getFromGeoLatency().getTotal());
+        assertEquals(1, metrics.getBatchCount());
+        assertEquals(100, metrics.getBatchPointCount());
+        assertEquals(39, metrics.getBatchOutOfBoundsCount());
+        assertEquals(100, metrics.getBatchSizeMax());
+        assertTrue(metrics.getCacheHitRate() > 0.9d, metrics::toString);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ProjectionMetricsRegistry.objectName("metrics test");
+        assertEquals(400L, server.getAttribute(name, "FromGeoCount"));
+        assertEquals(metrics.getCacheHitRate(), (double) server.getAttribute(name, "CacheHitRate"));
+        assertEquals(metrics.getToGeoLatencyP99(), server.getAttribute(name, "ToGeoLatencyP99"));
+
+        ProjectionMetricsRegistry.remove("metrics test");
+        assertFalse(server.isRegistered(name));
+
+        ConformalDynmaxionProjection conformal = new ConformalDynmaxionProjection();
+        conformal.fromGeo(10.0d, 20.0d, dst, 0);
+        assertEquals(0L, conformal.getFromGeoIterations().getTotal());
+        InstrumentedProjectionTransform instrumented = new InstrumentedProjectionTransform(
+                new ScaleProjectionTransform(ProjectionCompiler.compile(conformal), 2.0d, 2.0d), "iterations test", null);
+        assertTrue(conformal.getFromGeoIterations().isEnabled());
+        assertTrue(conformal.getToGeoIterations().isEnabled());
+        instrumented.fromGeo(10.0d, 20.0d, dst, 0);
+        assertEquals(1L, conformal.getFromGeoIterations().getTotal());
+        ProjectionMetricsRegistry.remove("iterations test");
+    }
+
+    private static GeographicProjection[] allProjections() {
+        final String projectionLists = "[" +
+                "    { \"centered_mercator\": {} }," +
+                "    { \"web_mercator\": { \"zoom\": 3 } }," +
+                "    { \"transverse_mercator\": {} }," +
+                "    { \"equirectangular\": {} }," +
+                "    { \"sinusoidal\": {} }," +
+                "    { \"equal_earth\": {} }," +
+                "    { \"bte_conformal_dymaxion\": {} }," +
+                "    { \"bte_conformal_dymaxion\": { \"singlePrecision\": true } }," +
+                "    { \"bte_conformal_dymaxion\": { \"interpolation\": \"cubic\" } }," +
+                "    { \"bte_conformal_dymaxion\": { \"fastMath\": true } }," +
+                "    { \"dymaxion\": {} }," +
+                "    { \"conformal_dymaxion\": {} }," +
+                "    { \"lambert_azimuthal\": { \"centerX\": 6.9, \"centerY\": 42.0 } }," +
+                "    { \"azimuthal_equidistant\": { \"centerX\": 6.9, \"centerY\": 42.0 } }," +
+                "    { \"stereographic\": { \"centerX\": 6.9, \"centerY\": 42.0, \"radius\": 123.4 } }," +
+                "    { \"clamp\": { \"delegate\": { \"equirectangular\": {} }, \"minX\": -20, \"minY\": -10, \"maxX\": 40, \"maxY\": 30 } }," +
+                "    { \"instrumented\": { \"delegate\": { \"equal_earth\": {} }, \"name\": \"test\" } }," +
+                "    { \"rotate\": { \"delegate\": { \"offset\": { \"delegate\": { \"swap_axes\": { \"delegate\": { \"flip_horizontal\": { \"delegate\": { \"sinusoidal\": {} } } } } }, \"dx\": 3, \"dy\": -7 } }, \"by\": 33 } }" +
+                "]";
+        GeographicProjection[] projections = TerraProjectionConstants.GSON.fromJson(projectionLists, GeographicProjection[].class);
+        return ObjectArrays.concat(projections, TerraProjectionConstants.bteProjection());
+    }
+
+    private void assertBatchMatches(ProjectionFunction function, double[] src, double[] dst, long[] valid, int converted) {
+        int expectedConverted = 0;
+        for (int i = 0; i < src.length / 2; i++) {
+            double[] expected;
+            try {
+                expected = function.project(src[2 * i], src[2 * i + 1]);
+            } catch (OutOfProjectionBoundsException e) {
+                expected = null;
+            }
+
+            if (expected == null) {
+                assertFalse(BatchUtils.isValid(valid, i));
+                assertTrue(Double.isNaN(dst[2 * i]) && Double.isNaN(dst[2 * i + 1]));
+            } else {
+                expectedConverted++;
+                assertTrue(BatchUtils.isValid(valid, i));
+                assertEquals(expected[0], dst[2 * i], 1e-9d);
+                assertEquals(expected[1], dst[2 * i + 1], 1e-9d);
+            }
+        }
+        assertEquals(expectedConverted, converted);
+    }
+
     @SuppressWarnings("unchecked")
     private <T> void assertInstanceOf(Object object, Class<T> clazz, Consumer<T> assertions) {
         assertTrue(clazz.isInstance(object));
@@ -165,4 +1183,12 @@ public class ProjectionTest {
         this.assertInstanceOf(object, clazz, t -> {});
     }
 
+    private void assertRelativelyEquals(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, 1e-9d * Math.max(1.0d, Math.abs(expected)));
+        }
+    }
+
 }